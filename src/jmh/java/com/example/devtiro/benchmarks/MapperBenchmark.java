@@ -0,0 +1,74 @@
+package com.example.devtiro.benchmarks;
+
+import com.example.devtiro.config.MapperConfig;
+import com.example.devtiro.domain.dto.AuthorDto;
+import com.example.devtiro.domain.dto.BookDto;
+import com.example.devtiro.domain.entities.AuthorEntity;
+import com.example.devtiro.domain.entities.BookEntity;
+import com.example.devtiro.mappers.Mapper;
+import com.example.devtiro.mappers.impl.AuthorDirectMapperImpl;
+import com.example.devtiro.mappers.impl.AuthorMapperImpl;
+import com.example.devtiro.mappers.impl.BookDirectMapperImpl;
+import com.example.devtiro.mappers.impl.BookMapperImpl;
+import org.modelmapper.ModelMapper;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class MapperBenchmark {
+
+    @Param({"modelmapper", "direct"})
+    private String type;
+
+    private Mapper<AuthorEntity, AuthorDto> authorMapper;
+    private Mapper<BookEntity, BookDto> bookMapper;
+
+    private AuthorEntity authorEntity;
+    private AuthorDto authorDto;
+    private BookEntity bookEntity;
+    private BookDto bookDto;
+
+    @Setup
+    public void setUp() {
+        if (type.equals("modelmapper")) {
+            ModelMapper modelMapper = new MapperConfig().createModelMapper();
+            authorMapper = new AuthorMapperImpl(modelMapper);
+            bookMapper = new BookMapperImpl(modelMapper);
+        } else {
+            AuthorDirectMapperImpl directAuthorMapper = new AuthorDirectMapperImpl();
+            authorMapper = directAuthorMapper;
+            bookMapper = new BookDirectMapperImpl(directAuthorMapper);
+        }
+
+        authorEntity = new AuthorEntity(1L, "Abigail Rose", 80, 0);
+        authorDto = new AuthorDto(1L, "Abigail Rose", 80);
+        bookEntity = new BookEntity("978-0-00-000000-1", "Broken Hope", authorEntity, 0);
+        bookDto = new BookDto("978-0-00-000000-1", "Broken Hope", authorDto);
+    }
+
+    @Benchmark
+    public AuthorDto authorMapTo() {
+        return authorMapper.mapTo(authorEntity);
+    }
+
+    @Benchmark
+    public AuthorEntity authorMapFrom() {
+        return authorMapper.mapFrom(authorDto);
+    }
+
+    @Benchmark
+    public BookDto bookMapTo() {
+        return bookMapper.mapTo(bookEntity);
+    }
+
+    @Benchmark
+    public BookEntity bookMapFrom() {
+        return bookMapper.mapFrom(bookDto);
+    }
+}
@@ -0,0 +1,100 @@
+package com.example.devtiro.benchmarks;
+
+import com.example.devtiro.BooksApiApplication;
+import com.example.devtiro.domain.entities.AuthorEntity;
+import com.example.devtiro.domain.entities.BookEntity;
+import com.example.devtiro.services.AuthorService;
+import com.example.devtiro.services.BookService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+/**
+ * Blocking HTTP clients against the full stack, with more concurrent requests than Tomcat's 200
+ * platform threads and far more than the 10 pooled connections. Sample time reports the p99.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Threads(400)
+@Fork(1)
+@State(Scope.Benchmark)
+public class RequestExecutionBenchmark {
+
+    private static final int BOOKS = 1_000;
+    private static final int AUTHORS = 100;
+
+    @Param({"platform", "virtual"})
+    private String threads;
+
+    private ConfigurableApplicationContext context;
+    private HttpClient httpClient;
+    private String baseUrl;
+
+    @Setup
+    public void setUp() {
+        context = new SpringApplicationBuilder(BooksApiApplication.class)
+                .properties(
+                        "server.port=0",
+                        "spring.threads.virtual.enabled=" + threads.equals("virtual"),
+                        "spring.datasource.url=jdbc:h2:mem:requests;MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE;DEFAULT_NULL_ORDERING=HIGH",
+                        "spring.datasource.username=sa",
+                        "spring.datasource.password=password",
+                        "spring.datasource.driver-class-name=org.h2.Driver",
+                        "spring.jpa.properties.hibernate.generate_statistics=false",
+                        // every request goes to the database
+                        "spring.cache.type=none",
+                        "spring.jpa.properties.hibernate.cache.use_second_level_cache=false",
+                        "spring.jpa.properties.hibernate.cache.use_query_cache=false",
+                        "logging.level.root=WARN")
+                .run();
+        AuthorService authorService = context.getBean(AuthorService.class);
+        List<AuthorEntity> authors = IntStream.range(0, AUTHORS)
+                .mapToObj(i -> authorService.save(AuthorEntity.builder().name("Author " + i).age(20 + i % 60).build()))
+                .toList();
+        context.getBean(BookService.class).createUpdateBooks(IntStream.range(0, BOOKS)
+                .mapToObj(i -> BookEntity.builder().isbn(isbn(i)).title("Title " + i).authorEntity(authors.get(i % AUTHORS)).build())
+                .toList());
+
+        int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+        baseUrl = "http://localhost:" + port;
+        httpClient = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+    }
+
+    @TearDown
+    public void tearDown() {
+        httpClient.close();
+        context.close();
+    }
+
+    private static String isbn(int i) {
+        return "978-0-00-%06d".formatted(i);
+    }
+
+    @Benchmark
+    public int getBook() throws IOException, InterruptedException {
+        return get("/books/" + isbn(ThreadLocalRandom.current().nextInt(BOOKS)));
+    }
+
+    @Benchmark
+    public int listBooksPage() throws IOException, InterruptedException {
+        return get("/books?page=" + ThreadLocalRandom.current().nextInt(BOOKS / 20) + "&size=20");
+    }
+
+    private int get(String path) throws IOException, InterruptedException {
+        HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + path)).GET().build();
+        return httpClient.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+    }
+}
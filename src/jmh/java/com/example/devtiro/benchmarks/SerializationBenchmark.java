@@ -0,0 +1,75 @@
+package com.example.devtiro.benchmarks;
+
+import com.example.devtiro.domain.dto.AuthorDto;
+import com.example.devtiro.domain.dto.BookDto;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+/**
+ * Encode time per response format. The bytes counter holds the payload size at the end of each
+ * measurement iteration and JMH sums it, so it reads as the size times the iteration count.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SerializationBenchmark {
+
+    @Param({"20", "100"})
+    private int pageSize;
+
+    @Param({"json", "cbor", "smile"})
+    private String format;
+
+    private ObjectMapper objectMapper;
+    private BookDto book;
+    private Page<BookDto> page;
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class Payload {
+        public long bytes;
+    }
+
+    @Setup
+    public void setUp() {
+        objectMapper = switch (format) {
+            case "cbor" -> Jackson2ObjectMapperBuilder.json().factory(new CBORFactory()).build();
+            case "smile" -> Jackson2ObjectMapperBuilder.json().factory(new SmileFactory()).build();
+            default -> Jackson2ObjectMapperBuilder.json().build();
+        };
+
+        List<BookDto> books = IntStream.range(0, pageSize)
+                .mapToObj(i -> new BookDto("978-0-00-" + i, "Title " + i, new AuthorDto((long) i % 10, "Author " + i % 10, 40)))
+                .toList();
+        book = books.get(0);
+        page = new PageImpl<>(books, PageRequest.of(0, pageSize), 10_000);
+    }
+
+    @Benchmark
+    public byte[] writeBook(Payload payload) throws JsonProcessingException {
+        byte[] bytes = objectMapper.writeValueAsBytes(book);
+        payload.bytes = bytes.length;
+        return bytes;
+    }
+
+    @Benchmark
+    public byte[] writeBookPage(Payload payload) throws JsonProcessingException {
+        byte[] bytes = objectMapper.writeValueAsBytes(page);
+        payload.bytes = bytes.length;
+        return bytes;
+    }
+}
@@ -0,0 +1,101 @@
+package com.example.devtiro.benchmarks;
+
+import com.example.devtiro.BooksApiApplication;
+import com.example.devtiro.domain.entities.AuthorEntity;
+import com.example.devtiro.domain.entities.BookEntity;
+import com.example.devtiro.services.AuthorService;
+import com.example.devtiro.services.BookService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ServiceBenchmark {
+
+    private static final int BOOKS = 1_000;
+    private static final int AUTHORS = 100;
+
+    private ConfigurableApplicationContext context;
+    private BookService bookService;
+    private AuthorService authorService;
+    private List<Long> authorIds;
+
+    @Setup
+    public void setUp() {
+        context = new SpringApplicationBuilder(BooksApiApplication.class)
+                .web(WebApplicationType.NONE)
+                .properties(
+                        "spring.datasource.url=jdbc:h2:mem:benchmark;MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE;DEFAULT_NULL_ORDERING=HIGH",
+                        "spring.datasource.username=sa",
+                        "spring.datasource.password=password",
+                        "spring.datasource.driver-class-name=org.h2.Driver",
+                        "spring.jpa.properties.hibernate.generate_statistics=false",
+                        "logging.level.root=WARN")
+                .run();
+        bookService = context.getBean(BookService.class);
+        authorService = context.getBean(AuthorService.class);
+
+        List<AuthorEntity> authors = IntStream.range(0, AUTHORS)
+                .mapToObj(i -> authorService.save(AuthorEntity.builder().name("Author " + i).age(20 + i % 60).build()))
+                .toList();
+        authorIds = authors.stream().map(AuthorEntity::getId).toList();
+        bookService.createUpdateBooks(IntStream.range(0, BOOKS)
+                .mapToObj(i -> BookEntity.builder().isbn(isbn(i)).title("Title " + i).authorEntity(authors.get(i % AUTHORS)).build())
+                .toList());
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    private static String isbn(int i) {
+        return "978-0-00-%06d".formatted(i);
+    }
+
+    @Benchmark
+    public Optional<BookEntity> bookFindOne() {
+        return bookService.findOne(isbn(ThreadLocalRandom.current().nextInt(BOOKS)));
+    }
+
+    @Benchmark
+    public Page<BookEntity> bookFindPage() {
+        return bookService.findAll(PageRequest.of(ThreadLocalRandom.current().nextInt(BOOKS / 20), 20));
+    }
+
+    @Benchmark
+    public BookEntity bookCreateUpdate() {
+        int i = ThreadLocalRandom.current().nextInt(BOOKS);
+        AuthorEntity author = authorService.findOne(authorIds.get(i % AUTHORS)).orElseThrow();
+        return bookService.createUpdateBook(isbn(i), BookEntity.builder().title("Title " + i).authorEntity(author).build());
+    }
+
+    @Benchmark
+    public Optional<AuthorEntity> authorFindOne() {
+        return authorService.findOne(authorIds.get(ThreadLocalRandom.current().nextInt(AUTHORS)));
+    }
+
+    @Benchmark
+    public Optional<AuthorEntity> authorFindByName() {
+        return authorService.findByName("Author " + ThreadLocalRandom.current().nextInt(AUTHORS));
+    }
+
+    @Benchmark
+    public List<AuthorEntity> authorFindAll() {
+        return authorService.findAll();
+    }
+}
@@ -0,0 +1,61 @@
+package com.example.devtiro.benchmarks;
+
+import com.example.devtiro.BooksApiApplication;
+import org.flywaydb.core.Flyway;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cold start of the whole application against a schema that is already in place, so only the
+ * per-startup schema work differs: Hibernate introspecting it for ddl-auto=update or validate, or
+ * Flyway finding nothing to migrate. Every fork is a fresh JVM and measures one start.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 0)
+@Measurement(iterations = 1)
+@Fork(10)
+@State(Scope.Benchmark)
+public class StartupBenchmark {
+
+    private static final String URL =
+            "jdbc:h2:mem:startup;MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE;DEFAULT_NULL_ORDERING=HIGH;DB_CLOSE_DELAY=-1";
+
+    @Param({"update", "validate", "migrations"})
+    private String schema;
+
+    private ConfigurableApplicationContext context;
+
+    @Setup(Level.Trial)
+    public void createSchema() {
+        Flyway.configure()
+                .dataSource(URL, "sa", "password")
+                .locations("classpath:db/migration/h2")
+                .load()
+                .migrate();
+    }
+
+    @Benchmark
+    public ConfigurableApplicationContext start() {
+        boolean migrations = schema.equals("migrations");
+        // arguments, unlike builder properties, take precedence over the application.properties on the classpath
+        context = new SpringApplicationBuilder(BooksApiApplication.class).run(
+                "--server.port=0",
+                "--spring.datasource.url=" + URL,
+                "--spring.datasource.username=sa",
+                "--spring.datasource.password=password",
+                "--spring.datasource.driver-class-name=org.h2.Driver",
+                "--spring.flyway.enabled=" + migrations,
+                "--spring.jpa.hibernate.ddl-auto=" + (migrations ? "none" : schema),
+                "--logging.level.root=WARN");
+        return context;
+    }
+
+    @TearDown(Level.Invocation)
+    public void stop() {
+        context.close();
+    }
+}
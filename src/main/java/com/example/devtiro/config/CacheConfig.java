@@ -0,0 +1,37 @@
+package com.example.devtiro.config;
+
+import org.hibernate.cache.jcache.ConfigSettings;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.cache.CacheManager;
+import javax.cache.Caching;
+import java.net.URI;
+import java.util.UUID;
+
+@Configuration
+@EnableCaching
+public class CacheConfig {
+
+    public static final String BOOKS = "books";
+    public static final String AUTHORS = "authors";
+
+    // Hibernate closes its CacheManager with the SessionFactory, so each context gets its own
+    // instead of sharing the provider's JVM-wide default.
+    @Bean
+    @ConditionalOnProperty(name = "spring.jpa.properties.hibernate.cache.region.factory_class", havingValue = "jcache")
+    public HibernatePropertiesCustomizer secondLevelCacheManager() {
+        return properties -> {
+            CacheManager cacheManager = Caching.getCachingProvider(
+                    (String) properties.get(ConfigSettings.PROVIDER)
+            ).getCacheManager(
+                    URI.create("devtiro:" + UUID.randomUUID()),
+                    getClass().getClassLoader()
+            );
+            properties.put(ConfigSettings.CACHE_MANAGER, cacheManager);
+        };
+    }
+}
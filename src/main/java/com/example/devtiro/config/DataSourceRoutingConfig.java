@@ -0,0 +1,63 @@
+package com.example.devtiro.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+// replaces the auto-configured data source once replicas are listed; without them nothing changes
+@Configuration
+@ConditionalOnProperty(name = "devtiro.datasource.replica-urls")
+public class DataSourceRoutingConfig {
+
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primaryDataSource(DataSourceProperties properties) {
+        return properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+    }
+
+    // replicas share the primary's credentials and pool settings
+    @Bean
+    public ReadWriteRoutingDataSource routingDataSource(@Qualifier("primaryDataSource") DataSource primaryDataSource,
+                                                        Environment environment,
+                                                        @Value("${devtiro.datasource.replica-urls}") List<String> replicaUrls)
+            throws SQLException {
+        HikariDataSource primaryPool = primaryDataSource.unwrap(HikariDataSource.class);
+        List<DataSource> replicas = new ArrayList<>();
+        for (String replicaUrl : replicaUrls) {
+            HikariDataSource replica = new HikariDataSource();
+            primaryPool.copyStateTo(replica);
+            replica.setJdbcUrl(replicaUrl);
+            replica.setPoolName("replica-" + replicas.size());
+            replica.setReadOnly(true);
+            replicas.add(Threading.VIRTUAL.isActive(environment) ? VirtualThreadConfig.limitConnections(replica) : replica);
+        }
+        return new ReadWriteRoutingDataSource(primaryDataSource, replicas);
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(ReadWriteRoutingDataSource routingDataSource) {
+        return new LazyConnectionDataSourceProxy(routingDataSource);
+    }
+
+    @Bean
+    public ReadYourWritesFilter readYourWritesFilter(
+            @Value("${devtiro.datasource.read-your-writes-window:5s}") Duration window) {
+        return new ReadYourWritesFilter(window);
+    }
+}
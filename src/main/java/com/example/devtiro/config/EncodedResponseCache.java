@@ -0,0 +1,76 @@
+package com.example.devtiro.config;
+
+import com.example.devtiro.events.AuthorChangedEvent;
+import com.example.devtiro.events.BookChangedEvent;
+import com.example.devtiro.events.CatalogChanges;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.core.annotation.Order;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Predicate;
+
+/**
+ * Encoded {@code GET /books/{isbn}} responses, weighed by body size and evicted once their bodies
+ * outgrow the byte budget or their time to live. A book or author change drops every response
+ * showing it.
+ */
+public class EncodedResponseCache {
+
+    private final Cache<Key, Entry> entries;
+    private final CatalogChanges catalogChanges;
+
+    public EncodedResponseCache(long maxBytes, Duration timeToLive, CatalogChanges catalogChanges) {
+        this.catalogChanges = catalogChanges;
+        this.entries = Caffeine.newBuilder()
+                .maximumWeight(maxBytes)
+                .weigher((Key key, Entry entry) -> entry.body().length)
+                .expireAfterWrite(timeToLive)
+                .build();
+    }
+
+    // the Accept header stands in for the content type it negotiates
+    public record Key(String isbn, String accept) {
+    }
+
+    public record Entry(String eTag, String contentType, byte[] body, Long authorId) {
+    }
+
+    // a response rendered before the generation last moved is not stored
+    public long generation() {
+        return catalogChanges.generation();
+    }
+
+    public Entry get(Key key) {
+        return entries.getIfPresent(key);
+    }
+
+    public void put(Key key, Entry entry, long generation) {
+        if (generation != catalogChanges.generation())
+            return;
+
+        entries.put(key, entry);
+        // an invalidation that began since the check above may have missed this entry
+        if (generation != catalogChanges.generation())
+            entries.asMap().remove(key, entry);
+    }
+
+    @Order(CatalogChanges.ORDER + 1)
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onBookChanged(BookChangedEvent event) {
+        invalidate(entry -> entry.getKey().isbn().equals(event.isbn()));
+    }
+
+    @Order(CatalogChanges.ORDER + 1)
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onAuthorChanged(AuthorChangedEvent event) {
+        invalidate(entry -> Objects.equals(entry.getValue().authorId(), event.id()));
+    }
+
+    private void invalidate(Predicate<Map.Entry<Key, Entry>> stale) {
+        entries.asMap().entrySet().removeIf(stale);
+    }
+}
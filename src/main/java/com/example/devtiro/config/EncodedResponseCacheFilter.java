@@ -0,0 +1,124 @@
+package com.example.devtiro.config;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.converter.json.AbstractJackson2HttpMessageConverter;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Answers repeated {@code GET /books/{isbn}} requests from {@link EncodedResponseCache}, without
+ * loading, mapping or serializing the book. Requests with a query string, such as {@code ?fields=},
+ * always go to the controller.
+ */
+public class EncodedResponseCacheFilter extends OncePerRequestFilter {
+
+    static final String ROUTE = "/books/{isbn}";
+    private static final String PREFIX = "/books/";
+
+    private final EncodedResponseCache cache;
+    private final HandlerMapping handlerMapping;
+    private final List<HttpMessageConverter<?>> converters;
+    private final Counter hits;
+    private final Counter misses;
+
+    public EncodedResponseCacheFilter(EncodedResponseCache cache, HandlerMapping handlerMapping,
+                                      List<HttpMessageConverter<?>> converters, MeterRegistry meterRegistry) {
+        this.cache = cache;
+        this.handlerMapping = handlerMapping;
+        this.converters = converters;
+        this.hits = meterRegistry.counter("devtiro.response.cache", "result", "hit");
+        this.misses = meterRegistry.counter("devtiro.response.cache", "result", "miss");
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        if (!HttpMethod.GET.matches(request.getMethod()) || request.getQueryString() != null || !routesToBook(request)) {
+            chain.doFilter(request, response);
+            return;
+        }
+
+        @SuppressWarnings("unchecked")
+        Map<String, String> variables = (Map<String, String>) request.getAttribute(HandlerMapping.URI_TEMPLATE_VARIABLES_ATTRIBUTE);
+        String isbn = variables.get("isbn");
+        String accept = request.getHeader(HttpHeaders.ACCEPT);
+        EncodedResponseCache.Key key = new EncodedResponseCache.Key(isbn, accept == null ? "" : accept);
+        EncodedResponseCache.Entry entry = cache.get(key);
+        if (entry != null) {
+            hits.increment();
+            if (new ServletWebRequest(request, response).checkNotModified(entry.eTag()))
+                return;
+            response.setHeader(HttpHeaders.ETAG, entry.eTag());
+            response.setContentType(entry.contentType());
+            response.setContentLength(entry.body().length);
+            response.getOutputStream().write(entry.body());
+            return;
+        }
+
+        long generation = cache.generation();
+        ContentCachingResponseWrapper wrapper = new ContentCachingResponseWrapper(response);
+        try {
+            chain.doFilter(request, wrapper);
+            misses.increment();
+            store(wrapper, key, generation);
+        } finally {
+            wrapper.copyBodyToResponse();
+        }
+    }
+
+    // /books/export and /books/search share the prefix but not the route, and the export streams asynchronously
+    private boolean routesToBook(HttpServletRequest request) {
+        if (!request.getRequestURI().startsWith(request.getContextPath() + PREFIX))
+            return false;
+        try {
+            return handlerMapping.getHandler(request) != null
+                    && ROUTE.equals(request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE));
+        } catch (Exception e) {
+            // the dispatcher reports the same failure
+            return false;
+        }
+    }
+
+    private void store(ContentCachingResponseWrapper response, EncodedResponseCache.Key key, long generation) {
+        String eTag = response.getHeader(HttpHeaders.ETAG);
+        if (response.getStatus() != HttpServletResponse.SC_OK || eTag == null || response.getContentType() == null)
+            return;
+
+        // the author's changes drop the response too
+        byte[] body = response.getContentAsByteArray();
+        authorId(MediaType.parseMediaType(response.getContentType()), body).ifPresent(authorId ->
+                cache.put(key, new EncodedResponseCache.Entry(eTag, response.getContentType(), body,
+                        authorId.isIntegralNumber() ? authorId.asLong() : null), generation));
+    }
+
+    // read back with the converter that wrote it; empty when none can, not a number for a book without an author
+    private Optional<JsonNode> authorId(MediaType contentType, byte[] body) {
+        for (HttpMessageConverter<?> converter : converters) {
+            if (converter instanceof AbstractJackson2HttpMessageConverter jackson && jackson.canRead(JsonNode.class, contentType)) {
+                try {
+                    return Optional.of(jackson.getObjectMapper().readTree(body).path("author").path("id"));
+                } catch (IOException e) {
+                    return Optional.empty();
+                }
+            }
+        }
+        return Optional.empty();
+    }
+}
@@ -0,0 +1,52 @@
+package com.example.devtiro.config;
+
+import com.example.devtiro.domain.dto.AuthorDto;
+import com.example.devtiro.domain.dto.BookDto;
+import com.fasterxml.jackson.annotation.JsonFilter;
+import com.fasterxml.jackson.databind.ser.impl.SimpleBeanPropertyFilter;
+import com.fasterxml.jackson.databind.ser.impl.SimpleFilterProvider;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import org.springframework.boot.autoconfigure.jackson.Jackson2ObjectMapperBuilderCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+
+// the filters are attached through mix-ins, so a plain ObjectMapper still writes the DTOs whole
+@Configuration
+public class JsonConfig {
+
+    public static final String BOOK_FIELDS = "bookFields";
+    public static final String AUTHOR_FIELDS = "authorFields";
+
+    // every property is written unless a response narrows a filter down, see SparseFieldsAdvice
+    @Bean
+    public Jackson2ObjectMapperBuilderCustomizer sparseFields() {
+        return builder -> builder
+                .mixIn(BookDto.class, BookFields.class)
+                .mixIn(AuthorDto.class, AuthorFields.class)
+                .filters(new SimpleFilterProvider().setDefaultFilter(SimpleBeanPropertyFilter.serializeAll()));
+    }
+
+    // Accept: application/cbor and application/x-jackson-smile get the same DTOs, mix-ins and filters as
+    // JSON, which stays the default; the builder is a fresh copy with the application's customizations
+    @Bean
+    public MappingJackson2CborHttpMessageConverter cborHttpMessageConverter(Jackson2ObjectMapperBuilder builder) {
+        return new MappingJackson2CborHttpMessageConverter(builder.factory(new CBORFactory()).build());
+    }
+
+    @Bean
+    public MappingJackson2SmileHttpMessageConverter smileHttpMessageConverter(Jackson2ObjectMapperBuilder builder) {
+        return new MappingJackson2SmileHttpMessageConverter(builder.factory(new SmileFactory()).build());
+    }
+
+    @JsonFilter(BOOK_FIELDS)
+    private abstract static class BookFields {
+    }
+
+    @JsonFilter(AUTHOR_FIELDS)
+    private abstract static class AuthorFields {
+    }
+}
@@ -0,0 +1,39 @@
+package com.example.devtiro.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.aop.TimedAspect;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+
+// http.server.requests and the hibernate.* session statistics are auto-configured; these add the
+// layers in between. Histograms are switched on per prefix in application.properties.
+@Configuration
+public class MetricsConfig {
+
+    // serves @Timed on the services
+    @Bean
+    public TimedAspect timedAspect(MeterRegistry meterRegistry) {
+        return new TimedAspect(meterRegistry);
+    }
+
+    @Bean
+    public HibernatePropertiesCustomizer sqlStatementCounter(MeterRegistry meterRegistry) {
+        return properties -> properties.put(AvailableSettings.STATEMENT_INSPECTOR, new SqlStatementCounter(meterRegistry));
+    }
+
+    @Bean
+    public MappingTimer mappingTimer(MeterRegistry meterRegistry) {
+        return new MappingTimer(meterRegistry);
+    }
+
+    // takes the place of the auto-configured converter
+    @Bean
+    public MappingJackson2HttpMessageConverter mappingJackson2HttpMessageConverter(ObjectMapper objectMapper,
+                                                                                   MeterRegistry meterRegistry) {
+        return new TimedJsonHttpMessageConverter(objectMapper, meterRegistry);
+    }
+}
@@ -0,0 +1,61 @@
+package com.example.devtiro.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Sends read-only transactions round-robin to the replicas and everything else to the primary.
+ * Needs a {@link org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy} in front, so the
+ * connection is only fetched once the transaction's read-only flag is known.
+ */
+public class ReadWriteRoutingDataSource extends AbstractRoutingDataSource implements AutoCloseable {
+
+    private static final String PRIMARY = "primary";
+    private static final ThreadLocal<Boolean> PRIMARY_PINNED = new ThreadLocal<>();
+
+    private final List<DataSource> replicas;
+    private final AtomicInteger nextReplica = new AtomicInteger();
+
+    public ReadWriteRoutingDataSource(DataSource primary, List<DataSource> replicas) {
+        this.replicas = replicas;
+        Map<Object, Object> targets = new HashMap<>();
+        targets.put(PRIMARY, primary);
+        for (int i = 0; i < replicas.size(); i++)
+            targets.put(i, replicas.get(i));
+        setTargetDataSources(targets);
+        setDefaultTargetDataSource(primary);
+    }
+
+    // read-your-writes: reads on this thread see the primary until unpinned
+    public static void pinToPrimary() {
+        PRIMARY_PINNED.set(Boolean.TRUE);
+    }
+
+    public static void unpin() {
+        PRIMARY_PINNED.remove();
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        if (replicas.isEmpty() || PRIMARY_PINNED.get() != null
+                || !TransactionSynchronizationManager.isCurrentTransactionReadOnly())
+            return PRIMARY;
+        return Math.floorMod(nextReplica.getAndIncrement(), replicas.size());
+    }
+
+    // the primary is a bean of its own, the replica pools only live here
+    @Override
+    public void close() throws Exception {
+        for (DataSource replica : replicas) {
+            HikariDataSource pool = replica.unwrap(HikariDataSource.class);
+            pool.close();
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package com.example.devtiro.config;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.Cookie;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpMethod;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Set;
+
+/**
+ * Keeps a client on the primary for a short window after it sent a write, so it never reads a
+ * replica that has not caught up with its own change yet. The window travels in a cookie holding
+ * its end as epoch millis.
+ */
+public class ReadYourWritesFilter extends OncePerRequestFilter {
+
+    static final String COOKIE_NAME = "devtiro-primary-until";
+
+    private static final Set<String> WRITE_METHODS = Set.of(
+            HttpMethod.POST.name(), HttpMethod.PUT.name(), HttpMethod.PATCH.name(), HttpMethod.DELETE.name());
+
+    private final Duration window;
+
+    public ReadYourWritesFilter(Duration window) {
+        this.window = window;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        boolean write = WRITE_METHODS.contains(request.getMethod());
+        if (write) {
+            // set before the chain runs, the response is committed by the time it returns
+            Cookie cookie = new Cookie(COOKIE_NAME, Long.toString(System.currentTimeMillis() + window.toMillis()));
+            cookie.setMaxAge((int) Math.max(window.toSeconds(), 1));
+            cookie.setPath("/");
+            cookie.setHttpOnly(true);
+            response.addCookie(cookie);
+        }
+
+        if (!write && !insideWindow(request)) {
+            chain.doFilter(request, response);
+            return;
+        }
+
+        ReadWriteRoutingDataSource.pinToPrimary();
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            ReadWriteRoutingDataSource.unpin();
+        }
+    }
+
+    private static boolean insideWindow(HttpServletRequest request) {
+        Cookie[] cookies = request.getCookies();
+        if (cookies == null)
+            return false;
+
+        return Arrays.stream(cookies)
+                .filter(cookie -> COOKIE_NAME.equals(cookie.getName()))
+                .anyMatch(cookie -> {
+                    try {
+                        return Long.parseLong(cookie.getValue()) > System.currentTimeMillis();
+                    } catch (NumberFormatException e) {
+                        return false;
+                    }
+                });
+    }
+}
@@ -0,0 +1,38 @@
+package com.example.devtiro.config;
+
+import com.example.devtiro.events.CatalogChanges;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.http.HttpMessageConverters;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.time.Duration;
+
+// a replica read can be older than the generation it would be stored under, so replicas keep the cache off
+@Configuration
+@ConditionalOnProperty(name = "devtiro.response-cache.max-size")
+@ConditionalOnExpression("'${devtiro.datasource.replica-urls:}'.isBlank()")
+public class ResponseCacheConfig {
+
+    @Bean
+    public EncodedResponseCache encodedResponseCache(@Value("${devtiro.response-cache.max-size}") DataSize maxSize,
+                                                     @Value("${devtiro.response-cache.time-to-live:10m}") Duration timeToLive,
+                                                     CatalogChanges catalogChanges) {
+        return new EncodedResponseCache(maxSize.toBytes(), timeToLive, catalogChanges);
+    }
+
+    @Bean
+    public EncodedResponseCacheFilter encodedResponseCacheFilter(EncodedResponseCache encodedResponseCache,
+                                                                 @Qualifier("requestMappingHandlerMapping") HandlerMapping handlerMapping,
+                                                                 HttpMessageConverters messageConverters,
+                                                                 MeterRegistry meterRegistry) {
+        return new EncodedResponseCacheFilter(encodedResponseCache, handlerMapping, messageConverters.getConverters(),
+                meterRegistry);
+    }
+}
@@ -0,0 +1,49 @@
+package com.example.devtiro.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Counts every statement Hibernate prepares, JPQL and native alike, tagged by its leading keyword
+ * only so the SQL text never reaches a tag. A JDBC batch is prepared once and counts once.
+ */
+public class SqlStatementCounter implements StatementInspector {
+
+    static final String METER_NAME = "devtiro.sql.statements";
+
+    private static final String OTHER = "other";
+
+    private final Map<String, Counter> counters;
+
+    public SqlStatementCounter(MeterRegistry meterRegistry) {
+        this.counters = Stream.of("select", "insert", "update", "delete", "merge", "with", OTHER)
+                .collect(Collectors.toUnmodifiableMap(Function.identity(), type -> Counter.builder(METER_NAME)
+                        .tag("type", type)
+                        .register(meterRegistry)));
+    }
+
+    @Override
+    public String inspect(String sql) {
+        counters.getOrDefault(leadingKeyword(sql), counters.get(OTHER)).increment();
+        return sql;
+    }
+
+    private static String leadingKeyword(String sql) {
+        String statement = sql.stripLeading();
+        if (statement.startsWith("/*")) {
+            int end = statement.indexOf("*/");
+            statement = end < 0 ? "" : statement.substring(end + 2).stripLeading();
+        }
+        int end = 0;
+        while (end < statement.length() && Character.isLetter(statement.charAt(end)))
+            end++;
+        return statement.substring(0, end).toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,33 @@
+package com.example.devtiro.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnThreading;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.sql.DataSource;
+
+// spring.threads.virtual.enabled=true already moves Tomcat and the application task executor onto
+// virtual threads; this only keeps them from outnumbering the connection pool
+@Configuration
+@ConditionalOnThreading(Threading.VIRTUAL)
+public class VirtualThreadConfig {
+
+    @Bean
+    public static BeanPostProcessor connectionLimitingDataSourcePostProcessor() {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                return bean instanceof HikariDataSource dataSource ? limitConnections(dataSource) : bean;
+            }
+        };
+    }
+
+    static DataSource limitConnections(HikariDataSource dataSource) {
+        // resolves an unset pool size to Hikari's default before the pool itself starts
+        dataSource.validate();
+        return new ConnectionLimitingDataSource(dataSource, dataSource.getMaximumPoolSize(), dataSource.getConnectionTimeout());
+    }
+}
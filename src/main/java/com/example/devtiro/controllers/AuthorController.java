@@ -1,9 +1,19 @@
 package com.example.devtiro.controllers;
 
+import com.example.devtiro.config.MappingTimer;
+import com.example.devtiro.domain.BookSummary;
 import com.example.devtiro.domain.dto.AuthorDto;
+import com.example.devtiro.domain.dto.BookDto;
+import com.example.devtiro.domain.dto.CursorPageDto;
 import com.example.devtiro.domain.entities.AuthorEntity;
 import com.example.devtiro.mappers.Mapper;
 import com.example.devtiro.services.AuthorService;
+import com.example.devtiro.services.BookService;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.web.PageableDefault;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
@@ -15,55 +25,147 @@ import java.util.Optional;
 public class AuthorController {
 
     private final AuthorService authorService;
+    private final BookService bookService;
     private Mapper<AuthorEntity, AuthorDto> authorMapper;
+    private MappingTimer mappingTimer;
 
-    public AuthorController(AuthorService authorService, Mapper<AuthorEntity, AuthorDto> authorMapper) {
+    public AuthorController(AuthorService authorService, BookService bookService,
+                            Mapper<AuthorEntity, AuthorDto> authorMapper, MappingTimer mappingTimer) {
         this.authorService = authorService;
+        this.bookService = bookService;
         this.authorMapper = authorMapper;
+        this.mappingTimer = mappingTimer;
     }
 
     @PostMapping(path = "/authors")
     public ResponseEntity<AuthorDto> createAuthor(@RequestBody AuthorDto author){
-        AuthorEntity authorEntity = authorMapper.mapFrom(author);
+        AuthorEntity authorEntity = mappingTimer.record(() -> authorMapper.mapFrom(author));
         AuthorEntity savedAuthorEntity = authorService.save(authorEntity);
-        return new ResponseEntity<>(authorMapper.mapTo(savedAuthorEntity), HttpStatus.CREATED);
+        return withETag(savedAuthorEntity, HttpStatus.CREATED);
     }
 
     @GetMapping(path = "/authors")
-    public List<AuthorDto> listAuthors() {
-         List<AuthorEntity> authors = authorService.findAll();
-         return authors.stream().map(authorMapper::mapTo).toList();
+    public ResponseEntity<Slice<AuthorDto>> listAuthors(@PageableDefault(size = Cursors.DEFAULT_SIZE, sort = "id") Pageable pageable) {
+        Slice<AuthorEntity> authors = authorService.findAll(pageable);
+        return new ResponseEntity<>(mappingTimer.record(() -> authors.map(authorMapper::mapTo)), HttpStatus.OK);
+    }
+
+    @GetMapping(path = "/authors", params = "after")
+    public ResponseEntity<CursorPageDto<AuthorDto>> listAuthorsAfter(@RequestParam("after") String after,
+                                                                     @RequestParam(name = "size", defaultValue = "" + Cursors.DEFAULT_SIZE) int size){
+        Long afterId = null;
+        if (!after.isEmpty()) {
+            Optional<Long> decodedId = Cursors.decode("id", after).flatMap(AuthorController::parseId);
+            if (decodedId.isEmpty())
+                return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+            afterId = decodedId.get();
+        }
+
+        int pageSize = Cursors.pageSize(size);
+        List<AuthorEntity> authors = authorService.findAllAfter(afterId, pageSize + 1);
+        List<AuthorDto> content = mappingTimer.record(() -> authors.stream().limit(pageSize).map(authorMapper::mapTo).toList());
+        String next = authors.size() > pageSize
+                ? Cursors.encode("id", content.get(pageSize - 1).getId().toString())
+                : null;
+
+        return new ResponseEntity<>(new CursorPageDto<>(content, next), HttpStatus.OK);
+    }
+
+    private static Optional<Long> parseId(String id) {
+        try {
+            return Optional.of(Long.parseLong(id));
+        } catch (NumberFormatException e) {
+            return Optional.empty();
+        }
     }
 
     @GetMapping(path = "/authors/{id}")
-    public ResponseEntity<AuthorDto> getAuthor(@PathVariable("id") Long id){
+    public ResponseEntity<AuthorDto> getAuthor(@PathVariable("id") Long id,
+                                               @RequestHeader(name = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch){
+        if (ifNoneMatch != null) {
+            Optional<String> eTag = authorService.findVersion(id).map(ETags::of);
+            if (eTag.filter(tag -> ETags.matchesAny(ifNoneMatch, tag)).isPresent()) {
+                HttpHeaders headers = new HttpHeaders();
+                headers.setETag(eTag.get());
+                return new ResponseEntity<>(headers, HttpStatus.NOT_MODIFIED);
+            }
+        }
+
         Optional<AuthorEntity> foundAuthor = authorService.findOne(id);
-        return foundAuthor.map((author) -> {
-            AuthorDto authorDto = authorMapper.mapTo(author);
-            return new ResponseEntity<>(authorDto, HttpStatus.OK);
-        }).orElse(new ResponseEntity<>(HttpStatus.NOT_FOUND));
+        return foundAuthor.map(author -> withETag(author, HttpStatus.OK))
+                .orElse(new ResponseEntity<>(HttpStatus.NOT_FOUND));
+    }
+
+    // the author is the one in the path, so the books come without it
+    @GetMapping(path = "/authors/{id}/books")
+    public ResponseEntity<CursorPageDto<BookDto>> listAuthorBooks(@PathVariable("id") Long id,
+                                                                  @RequestParam(name = "after", defaultValue = "") String after,
+                                                                  @RequestParam(name = "size", defaultValue = "" + Cursors.DEFAULT_SIZE) int size){
+        Optional<String> afterIsbn = Optional.empty();
+        if (!after.isEmpty()) {
+            afterIsbn = Cursors.decode("isbn", after);
+            if (afterIsbn.isEmpty())
+                return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+        }
+
+        int pageSize = Cursors.pageSize(size);
+        List<BookSummary> books = bookService.findByAuthorAfter(id, afterIsbn.orElse(null), pageSize + 1);
+        // only an empty page needs the second look to tell a missing author from one without books
+        if (books.isEmpty() && !authorService.isExists(id))
+            return new ResponseEntity<>(HttpStatus.NOT_FOUND);
+
+        List<BookDto> content = mappingTimer.record(() -> books.stream().limit(pageSize)
+                .map(book -> BookDto.builder().isbn(book.isbn()).title(book.title()).build())
+                .toList());
+        String next = books.size() > pageSize
+                ? Cursors.encode("isbn", content.get(pageSize - 1).getIsbn())
+                : null;
+
+        return new ResponseEntity<>(new CursorPageDto<>(content, next), HttpStatus.OK);
     }
 
     @PutMapping(path = "/authors/{id}")
-    public ResponseEntity<AuthorDto> fullUpdateAuthor(@PathVariable("id") Long id, @RequestBody AuthorDto authorDto){
+    public ResponseEntity<AuthorDto> fullUpdateAuthor(@PathVariable("id") Long id,
+                                                      @RequestHeader(name = HttpHeaders.IF_MATCH, required = false) String ifMatch,
+                                                      @RequestBody AuthorDto authorDto){
         if (!authorService.isExists(id))
             return new ResponseEntity<>(HttpStatus.NOT_FOUND);
 
-        authorDto.setId(id);
-        AuthorEntity authorEntity = authorMapper.mapFrom(authorDto);
-        AuthorEntity savesAuthorEntity = authorService.save(authorEntity);
+        Optional<Long> expectedVersion = Optional.empty();
+        if (ETags.isConditional(ifMatch)) {
+            expectedVersion = ETags.parseVersion(ifMatch);
+            if (expectedVersion.isEmpty())
+                return new ResponseEntity<>(HttpStatus.PRECONDITION_FAILED);
+        }
 
-        return new ResponseEntity<>(authorMapper.mapTo(savesAuthorEntity), HttpStatus.OK);
+        AuthorEntity authorEntity = mappingTimer.record(() -> authorMapper.mapFrom(authorDto));
+        try {
+            AuthorEntity savesAuthorEntity = authorService.update(id, authorEntity, expectedVersion.orElse(null));
+            return withETag(savesAuthorEntity, HttpStatus.OK);
+        } catch (OptimisticLockingFailureException e) {
+            return new ResponseEntity<>(HttpStatus.PRECONDITION_FAILED);
+        }
     }
 
     @PatchMapping(path = "/authors/{id}")
-    public ResponseEntity<AuthorDto> partialUpdate(@PathVariable("id") Long id, @RequestBody AuthorDto authorDto){
-        if (!authorService.isExists(id))
-            return new ResponseEntity<>(HttpStatus.NOT_FOUND);
+    public ResponseEntity<AuthorDto> partialUpdate(@PathVariable("id") Long id,
+                                                   @RequestHeader(name = HttpHeaders.IF_MATCH, required = false) String ifMatch,
+                                                   @RequestBody AuthorDto authorDto){
+        Optional<Long> expectedVersion = Optional.empty();
+        if (ETags.isConditional(ifMatch)) {
+            expectedVersion = ETags.parseVersion(ifMatch);
+            if (expectedVersion.isEmpty())
+                return new ResponseEntity<>(HttpStatus.PRECONDITION_FAILED);
+        }
 
-        AuthorEntity authorEntity = authorMapper.mapFrom(authorDto);
-        AuthorEntity authorEntityUpdated = authorService.partialUpdate(id, authorEntity);
-        return new ResponseEntity<>(authorMapper.mapTo(authorEntityUpdated), HttpStatus.OK);
+        AuthorEntity authorEntity = mappingTimer.record(() -> authorMapper.mapFrom(authorDto));
+        try {
+            Optional<AuthorEntity> authorEntityUpdated = authorService.partialUpdate(id, authorEntity, expectedVersion.orElse(null));
+            return authorEntityUpdated.map(author -> withETag(author, HttpStatus.OK))
+                    .orElse(new ResponseEntity<>(HttpStatus.NOT_FOUND));
+        } catch (OptimisticLockingFailureException e) {
+            return new ResponseEntity<>(HttpStatus.PRECONDITION_FAILED);
+        }
     }
 
     @DeleteMapping(path = "/authors/{id}")
@@ -71,4 +173,10 @@ public class AuthorController {
         authorService.delete(id);
         return new ResponseEntity<>(HttpStatus.NO_CONTENT);
     }
+
+    private ResponseEntity<AuthorDto> withETag(AuthorEntity author, HttpStatus status) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setETag(ETags.of(author.getVersion()));
+        return new ResponseEntity<>(mappingTimer.record(() -> authorMapper.mapTo(author)), headers, status);
+    }
 }
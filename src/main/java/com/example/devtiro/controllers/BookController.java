@@ -1,67 +1,243 @@
 package com.example.devtiro.controllers;
 
+import com.example.devtiro.config.MappingTimer;
+import com.example.devtiro.domain.BookSummary;
+import com.example.devtiro.domain.BookVersion;
+import com.example.devtiro.domain.CountMode;
+import com.example.devtiro.domain.dto.BookBatchItemDto;
+import com.example.devtiro.domain.dto.BookBatchResultDto;
 import com.example.devtiro.domain.dto.BookDto;
+import com.example.devtiro.domain.dto.BookImportResultDto;
+import com.example.devtiro.domain.dto.CursorPageDto;
+import com.example.devtiro.domain.dto.DeleteResultDto;
 import com.example.devtiro.domain.entities.BookEntity;
 import com.example.devtiro.mappers.Mapper;
+import com.example.devtiro.services.BookImportService;
 import com.example.devtiro.services.BookService;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.async.WebAsyncUtils;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.time.Duration;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.concurrent.RejectedExecutionException;
 
 @RestController
 public class BookController {
 
     private Mapper<BookEntity, BookDto> bookMapper;
     private BookService bookService;
+    private BookImportService bookImportService;
+    private ObjectMapper objectMapper;
+    private MappingTimer mappingTimer;
+    private Duration exportTimeout;
 
-    public BookController(Mapper<BookEntity, BookDto> bookMapper, BookService bookService) {
+    public BookController(Mapper<BookEntity, BookDto> bookMapper, BookService bookService,
+                          BookImportService bookImportService, ObjectMapper objectMapper,
+                          MappingTimer mappingTimer,
+                          @Value("${devtiro.export.timeout:1h}") Duration exportTimeout) {
         this.bookMapper = bookMapper;
         this.bookService = bookService;
+        this.bookImportService = bookImportService;
+        this.objectMapper = objectMapper;
+        this.mappingTimer = mappingTimer;
+        this.exportTimeout = exportTimeout;
     }
 
     @PutMapping(path = "/books/{isbn}")
     public ResponseEntity<BookDto> createUpdateBook(@PathVariable("isbn") String isbn,
+                                                    @RequestHeader(name = HttpHeaders.IF_MATCH, required = false) String ifMatch,
                                                     @RequestBody BookDto book){
-        BookEntity bookEntity = bookMapper.mapFrom(book);
-        boolean bookExists = bookService.isExists(isbn);
-        BookEntity savedBookEntity = bookService.createUpdateBook(isbn, bookEntity);
-        BookDto savedBookDto = bookMapper.mapTo(savedBookEntity);
-
-        return bookExists
-                ? new ResponseEntity<>(savedBookDto, HttpStatus.OK)
-                : new ResponseEntity<>(savedBookDto, HttpStatus.CREATED);
+        BookEntity bookEntity = mappingTimer.record(() -> bookMapper.mapFrom(book));
+        if (ifMatch == null) {
+            boolean created = bookService.upsertBook(isbn, bookEntity);
+            return withETag(bookEntity, created ? HttpStatus.CREATED : HttpStatus.OK);
+        }
+
+        if (!bookService.isExists(isbn))
+            return new ResponseEntity<>(HttpStatus.PRECONDITION_FAILED);
+
+        Optional<BookVersion> expectedVersion = Optional.empty();
+        if (ETags.isConditional(ifMatch)) {
+            expectedVersion = ETags.parseBookVersion(ifMatch);
+            if (expectedVersion.isEmpty())
+                return new ResponseEntity<>(HttpStatus.PRECONDITION_FAILED);
+        }
+
+        try {
+            BookEntity savedBookEntity = bookService.createUpdateBook(isbn, bookEntity, expectedVersion.orElse(null));
+            return withETag(savedBookEntity, HttpStatus.OK);
+        } catch (OptimisticLockingFailureException e) {
+            return new ResponseEntity<>(HttpStatus.PRECONDITION_FAILED);
+        }
+    }
+
+    @PutMapping(path = "/books")
+    public ResponseEntity<BookBatchResultDto> createUpdateBooks(@RequestBody List<BookDto> books){
+        if (books.stream().map(BookDto::getIsbn).anyMatch(Objects::isNull))
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+        // every item gets a status of its own, which a repeated ISBN could not have
+        if (books.stream().map(BookDto::getIsbn).distinct().count() != books.size())
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+
+        List<BookEntity> bookEntities = mappingTimer.record(() -> books.stream().map(bookMapper::mapFrom).toList());
+        Map<String, Boolean> created = bookService.createUpdateBooks(bookEntities);
+
+        List<BookBatchItemDto> items = created.entrySet().stream()
+                .map(entry -> new BookBatchItemDto(entry.getKey(), entry.getValue()
+                        ? BookBatchItemDto.Status.CREATED
+                        : BookBatchItemDto.Status.UPDATED))
+                .toList();
+        int createdCount = (int) created.values().stream().filter(Boolean::booleanValue).count();
+
+        return new ResponseEntity<>(
+                new BookBatchResultDto(createdCount, items.size() - createdCount, items), HttpStatus.OK);
+    }
+
+    @PostMapping(path = "/books/import", consumes = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<BookImportResultDto> importBooks(InputStream ndjson) throws IOException {
+        try {
+            return new ResponseEntity<>(bookImportService.importBooks(ndjson), HttpStatus.OK);
+        } catch (RejectedExecutionException e) {
+            return new ResponseEntity<>(HttpStatus.SERVICE_UNAVAILABLE);
+        }
     }
 
+    // none skips the count query, estimate takes the total from table statistics, exact counts the rows
     @GetMapping(path = "/books")
-    public Page<BookDto> listBooks(Pageable pageable){
-        Page<BookEntity> books = bookService.findAll(pageable);
-        return books.map(bookMapper::mapTo);
+    public ResponseEntity<Slice<BookDto>> listBooks(@RequestParam(name = "count", defaultValue = "exact") String count,
+                                                    @RequestParam(name = SparseFieldsAdvice.PARAMETER, required = false) String fields,
+                                                    Pageable pageable){
+        Optional<CountMode> countMode = CountMode.of(count);
+        if (countMode.isEmpty())
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+
+        if (fields != null && !fields.isBlank() && !SparseFieldsAdvice.includesAuthor(SparseFieldsAdvice.parse(fields))) {
+            Slice<BookSummary> summaries = bookService.findSummaries(pageable, countMode.get());
+            return new ResponseEntity<>(mappingTimer.record(() -> summaries.map(BookController::toDto)), HttpStatus.OK);
+        }
+
+        Slice<BookEntity> books = bookService.findAll(pageable, countMode.get());
+        return new ResponseEntity<>(mappingTimer.record(() -> books.map(bookMapper::mapTo)), HttpStatus.OK);
+    }
+
+    @GetMapping(path = "/books", params = "after")
+    public ResponseEntity<CursorPageDto<BookDto>> listBooksAfter(@RequestParam("after") String after,
+                                                                 @RequestParam(name = "size", defaultValue = "" + Cursors.DEFAULT_SIZE) int size){
+        Optional<String> afterIsbn = Optional.empty();
+        if (!after.isEmpty()) {
+            afterIsbn = Cursors.decode("isbn", after);
+            if (afterIsbn.isEmpty())
+                return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+        }
+
+        int pageSize = Cursors.pageSize(size);
+        List<BookEntity> books = bookService.findAllAfter(afterIsbn.orElse(null), pageSize + 1);
+        List<BookDto> content = mappingTimer.record(() -> books.stream().limit(pageSize).map(bookMapper::mapTo).toList());
+        String next = books.size() > pageSize
+                ? Cursors.encode("isbn", content.get(pageSize - 1).getIsbn())
+                : null;
+
+        return new ResponseEntity<>(new CursorPageDto<>(content, next), HttpStatus.OK);
+    }
+
+    @GetMapping(path = "/books/search")
+    public ResponseEntity<Page<BookDto>> searchBooks(@RequestParam("q") String query, Pageable pageable){
+        if (query.isBlank())
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+
+        Page<BookEntity> books = bookService.search(query, pageable);
+        return new ResponseEntity<>(mappingTimer.record(() -> books.map(bookMapper::mapTo)), HttpStatus.OK);
+    }
+
+    @GetMapping(path = "/books/export", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> exportBooks(HttpServletRequest request){
+        // the whole catalog outlasts the application's async timeout, which stays in force elsewhere
+        WebAsyncUtils.getAsyncManager(request).getAsyncWebRequest().setTimeout(exportTimeout.toMillis());
+        StreamingResponseBody body = outputStream -> {
+            JsonGenerator generator = objectMapper.createGenerator(outputStream);
+            generator.setRootValueSeparator(null);
+            bookService.exportBooks(book -> {
+                try {
+                    generator.writeObject(bookMapper.mapTo(book));
+                    generator.writeRaw('\n');
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+            generator.flush();
+        };
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_NDJSON);
+        return new ResponseEntity<>(body, headers, HttpStatus.OK);
     }
 
     @GetMapping(path = "/books/{isbn}")
-    public ResponseEntity<BookDto> getBook(@PathVariable("isbn") String isbn){
-        Optional<BookEntity> foundBook = bookService.findOne(isbn);
+    public ResponseEntity<BookDto> getBook(@PathVariable("isbn") String isbn,
+                                           @RequestHeader(name = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch){
+        if (ifNoneMatch != null) {
+            Optional<String> eTag = bookService.findVersion(isbn).map(ETags::of);
+            if (eTag.filter(tag -> ETags.matchesAny(ifNoneMatch, tag)).isPresent()) {
+                HttpHeaders headers = new HttpHeaders();
+                headers.setETag(eTag.get());
+                return new ResponseEntity<>(headers, HttpStatus.NOT_MODIFIED);
+            }
+        }
 
-        return foundBook.map(book -> {
-            BookDto bookDto = bookMapper.mapTo(book);
-            return new ResponseEntity<>(bookDto, HttpStatus.OK);
-        }).orElse(new ResponseEntity<>(HttpStatus.NOT_FOUND));
+        Optional<BookEntity> foundBook = bookService.findOne(isbn);
+        return foundBook.map(book -> withETag(book, HttpStatus.OK))
+                .orElse(new ResponseEntity<>(HttpStatus.NOT_FOUND));
     }
 
     @PatchMapping(path = "/books/{isbn}")
     public ResponseEntity<BookDto> partialUpdate(@PathVariable String isbn,
+                                                 @RequestHeader(name = HttpHeaders.IF_MATCH, required = false) String ifMatch,
                                                  @RequestBody BookDto bookDto){
-        if (!bookService.isExists(isbn)) {
-            return new ResponseEntity<>(HttpStatus.NOT_FOUND);
+        Optional<BookVersion> expectedVersion = Optional.empty();
+        if (ETags.isConditional(ifMatch)) {
+            expectedVersion = ETags.parseBookVersion(ifMatch);
+            if (expectedVersion.isEmpty())
+                return new ResponseEntity<>(HttpStatus.PRECONDITION_FAILED);
+        }
+
+        BookEntity bookEntity = mappingTimer.record(() -> bookMapper.mapFrom(bookDto));
+        try {
+            Optional<BookEntity> bookEntityUpdated = bookService.partialUpdate(isbn, bookEntity, expectedVersion.orElse(null));
+            return bookEntityUpdated.map(book -> withETag(book, HttpStatus.OK))
+                    .orElse(new ResponseEntity<>(HttpStatus.NOT_FOUND));
+        } catch (OptimisticLockingFailureException e) {
+            return new ResponseEntity<>(HttpStatus.PRECONDITION_FAILED);
         }
+    }
+
+    @DeleteMapping(path = "/books")
+    public ResponseEntity<DeleteResultDto> deleteBooks(@RequestParam(name = "isbn", required = false) List<String> isbns,
+                                                       @RequestParam(name = "authorId", required = false) Long authorId){
+        if ((isbns == null) == (authorId == null) || (isbns != null && isbns.isEmpty()))
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
 
-        BookEntity bookEntity = bookMapper.mapFrom(bookDto);
-        BookEntity bookEntityUpdated = bookService.partialUpdate(isbn, bookEntity);
-        return new ResponseEntity<>(bookMapper.mapTo(bookEntityUpdated), HttpStatus.OK);
+        int deleted = isbns != null
+                ? bookService.deleteAll(isbns)
+                : bookService.deleteByAuthor(authorId);
+        return new ResponseEntity<>(new DeleteResultDto(deleted), HttpStatus.OK);
     }
 
     @DeleteMapping(path = "/books/{isbn}")
@@ -69,4 +245,14 @@ public class BookController {
         bookService.delete(isbn);
         return new ResponseEntity<>(HttpStatus.NO_CONTENT);
     }
+
+    private static BookDto toDto(BookSummary book) {
+        return BookDto.builder().isbn(book.isbn()).title(book.title()).build();
+    }
+
+    private ResponseEntity<BookDto> withETag(BookEntity book, HttpStatus status) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setETag(ETags.of(BookVersion.of(book)));
+        return new ResponseEntity<>(mappingTimer.record(() -> bookMapper.mapTo(book)), headers, status);
+    }
 }
@@ -0,0 +1,37 @@
+package com.example.devtiro.controllers;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Optional;
+
+/**
+ * Opaque keyset cursors: the sort key name and the last seen value, base64url encoded.
+ */
+final class Cursors {
+
+    static final int DEFAULT_SIZE = 20;
+    static final int MAX_SIZE = 100;
+
+    private Cursors() {
+    }
+
+    static String encode(String sortKey, String value) {
+        byte[] cursor = (sortKey + ":" + value).getBytes(StandardCharsets.UTF_8);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(cursor);
+    }
+
+    static Optional<String> decode(String sortKey, String cursor) {
+        try {
+            String decoded = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            return decoded.startsWith(sortKey + ":")
+                    ? Optional.of(decoded.substring(sortKey.length() + 1))
+                    : Optional.empty();
+        } catch (IllegalArgumentException e) {
+            return Optional.empty();
+        }
+    }
+
+    static int pageSize(int size) {
+        return Math.min(Math.max(size, 1), MAX_SIZE);
+    }
+}
@@ -0,0 +1,75 @@
+package com.example.devtiro.controllers;
+
+import com.example.devtiro.domain.BookVersion;
+
+import java.util.Optional;
+
+/**
+ * Strong entity tags built from the {@code @Version} columns: {@code "3"} for an author,
+ * {@code "3-1"} for a book and its author.
+ */
+final class ETags {
+
+    private static final String ANY = "*";
+
+    private ETags() {
+    }
+
+    static String of(long version) {
+        return "\"" + version + "\"";
+    }
+
+    static String of(BookVersion version) {
+        return version.authorVersion() == null
+                ? of(version.version())
+                : "\"" + version.version() + "-" + version.authorVersion() + "\"";
+    }
+
+    // If-None-Match uses the weak comparison and may list several tags
+    static boolean matchesAny(String ifNoneMatch, String eTag) {
+        for (String tag : ifNoneMatch.split(",")) {
+            String candidate = tag.trim();
+            if (candidate.startsWith("W/"))
+                candidate = candidate.substring(2);
+            if (candidate.equals(ANY) || candidate.equals(eTag))
+                return true;
+        }
+        return false;
+    }
+
+    // If-Match: * only asks for the resource to exist, anything else pins a version
+    static boolean isConditional(String ifMatch) {
+        return ifMatch != null && !ifMatch.trim().equals(ANY);
+    }
+
+    static Optional<Long> parseVersion(String ifMatch) {
+        return unquote(ifMatch).flatMap(ETags::parseLong);
+    }
+
+    static Optional<BookVersion> parseBookVersion(String ifMatch) {
+        return unquote(ifMatch).flatMap(tag -> {
+            int separator = tag.indexOf('-');
+            if (separator < 0)
+                return parseLong(tag).map(version -> new BookVersion(version, null));
+            return parseLong(tag.substring(0, separator)).flatMap(version ->
+                    parseLong(tag.substring(separator + 1)).map(authorVersion ->
+                            new BookVersion(version, authorVersion)));
+        });
+    }
+
+    // a weak tag or a list of tags can never match a single strong tag
+    private static Optional<String> unquote(String ifMatch) {
+        String tag = ifMatch.trim();
+        return tag.length() > 2 && tag.startsWith("\"") && tag.endsWith("\"")
+                ? Optional.of(tag.substring(1, tag.length() - 1))
+                : Optional.empty();
+    }
+
+    private static Optional<Long> parseLong(String value) {
+        try {
+            return Optional.of(Long.parseLong(value));
+        } catch (NumberFormatException e) {
+            return Optional.empty();
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package com.example.devtiro.controllers;
+
+import com.example.devtiro.config.JsonConfig;
+import com.example.devtiro.domain.dto.BookDto;
+import com.fasterxml.jackson.databind.ser.impl.SimpleBeanPropertyFilter;
+import com.fasterxml.jackson.databind.ser.impl.SimpleFilterProvider;
+import org.springframework.core.MethodParameter;
+import org.springframework.core.ResolvableType;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.json.MappingJacksonValue;
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.http.server.ServerHttpResponse;
+import org.springframework.http.server.ServletServerHttpRequest;
+import org.springframework.web.bind.annotation.ControllerAdvice;
+import org.springframework.web.servlet.mvc.method.annotation.AbstractMappingJacksonResponseBodyAdvice;
+
+import java.util.Arrays;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Writes only the properties named in {@code ?fields=} of the books or authors in a response.
+ * Book responses take {@code author} for the whole author or {@code author.name} and the like for
+ * parts of it.
+ */
+@ControllerAdvice
+class SparseFieldsAdvice extends AbstractMappingJacksonResponseBodyAdvice {
+
+    static final String PARAMETER = "fields";
+    static final String AUTHOR = "author";
+
+    @Override
+    protected void beforeBodyWriteInternal(MappingJacksonValue bodyContainer, MediaType contentType,
+                                           MethodParameter returnType, ServerHttpRequest request,
+                                           ServerHttpResponse response) {
+        if (!(request instanceof ServletServerHttpRequest servletRequest))
+            return;
+        String parameter = servletRequest.getServletRequest().getParameter(PARAMETER);
+        if (parameter == null || parameter.isBlank())
+            return;
+
+        Set<String> fields = parse(parameter);
+        SimpleFilterProvider filters = new SimpleFilterProvider().setDefaultFilter(SimpleBeanPropertyFilter.serializeAll());
+        if (mentions(ResolvableType.forMethodParameter(returnType), BookDto.class)) {
+            Set<String> bookFields = fields.stream().map(field -> field.split("\\.", 2)[0]).collect(Collectors.toSet());
+            filters.addFilter(JsonConfig.BOOK_FIELDS, SimpleBeanPropertyFilter.filterOutAllExcept(bookFields));
+            Set<String> authorFields = authorFields(fields);
+            if (!authorFields.isEmpty())
+                filters.addFilter(JsonConfig.AUTHOR_FIELDS, SimpleBeanPropertyFilter.filterOutAllExcept(authorFields));
+        } else {
+            filters.addFilter(JsonConfig.AUTHOR_FIELDS, SimpleBeanPropertyFilter.filterOutAllExcept(fields));
+        }
+        bodyContainer.setFilters(filters);
+    }
+
+    static Set<String> parse(String parameter) {
+        return Arrays.stream(parameter.split(","))
+                .map(String::trim)
+                .filter(field -> !field.isEmpty())
+                .collect(Collectors.toSet());
+    }
+
+    // whether the book's author has to be read at all
+    static boolean includesAuthor(Set<String> fields) {
+        return fields.stream().anyMatch(field -> field.equals(AUTHOR) || field.startsWith(AUTHOR + "."));
+    }
+
+    // empty when the whole author was asked for
+    private static Set<String> authorFields(Set<String> fields) {
+        if (fields.contains(AUTHOR))
+            return Set.of();
+        return fields.stream()
+                .filter(field -> field.startsWith(AUTHOR + "."))
+                .map(field -> field.substring(AUTHOR.length() + 1))
+                .collect(Collectors.toSet());
+    }
+
+    private static boolean mentions(ResolvableType type, Class<?> target) {
+        if (type == ResolvableType.NONE)
+            return false;
+        if (target.equals(type.resolve()))
+            return true;
+        return Arrays.stream(type.getGenerics()).anyMatch(generic -> mentions(generic, target));
+    }
+}
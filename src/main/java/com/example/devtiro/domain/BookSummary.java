@@ -0,0 +1,5 @@
+package com.example.devtiro.domain;
+
+// a book without its author, for listings that are already scoped to one
+public record BookSummary(String isbn, String title) {
+}
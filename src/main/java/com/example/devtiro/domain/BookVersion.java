@@ -0,0 +1,13 @@
+package com.example.devtiro.domain;
+
+import com.example.devtiro.domain.entities.AuthorEntity;
+import com.example.devtiro.domain.entities.BookEntity;
+
+// a book response embeds its author, so both versions identify the representation
+public record BookVersion(long version, Long authorVersion) {
+
+    public static BookVersion of(BookEntity book) {
+        AuthorEntity author = book.getAuthorEntity();
+        return new BookVersion(book.getVersion(), author == null ? null : author.getVersion());
+    }
+}
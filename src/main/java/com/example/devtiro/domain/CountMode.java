@@ -0,0 +1,18 @@
+package com.example.devtiro.domain;
+
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.Optional;
+
+// how much a listing pays for its total: nothing, table statistics, or a count query
+public enum CountMode {
+    NONE,
+    ESTIMATE,
+    EXACT;
+
+    public static Optional<CountMode> of(String name) {
+        return Arrays.stream(values())
+                .filter(mode -> mode.name().toLowerCase(Locale.ROOT).equals(name))
+                .findFirst();
+    }
+}
@@ -0,0 +1,22 @@
+package com.example.devtiro.domain.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class BookBatchItemDto {
+
+    private String isbn;
+
+    private Status status;
+
+    public enum Status {
+        CREATED,
+        UPDATED
+    }
+}
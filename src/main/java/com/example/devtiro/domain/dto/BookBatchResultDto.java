@@ -0,0 +1,21 @@
+package com.example.devtiro.domain.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class BookBatchResultDto {
+
+    private int created;
+
+    private int updated;
+
+    private List<BookBatchItemDto> items;
+}
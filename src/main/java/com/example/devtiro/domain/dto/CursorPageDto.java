@@ -0,0 +1,19 @@
+package com.example.devtiro.domain.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class CursorPageDto<T> {
+
+    private List<T> content;
+
+    private String next;
+}
@@ -3,6 +3,7 @@ package com.example.devtiro.domain.entities;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.NotBlank;
 import lombok.*;
+import org.hibernate.annotations.ColumnDefault;
 
 @Data
 @AllArgsConstructor
@@ -20,4 +21,9 @@ public class AuthorEntity {
     private  String name;
 
     private  Integer age;
+
+    @Version
+    @ColumnDefault("0")
+    @EqualsAndHashCode.Exclude
+    private long version;
 }
@@ -0,0 +1,4 @@
+package com.example.devtiro.events;
+
+public record BookChangedEvent(String isbn) {
+}
@@ -0,0 +1,38 @@
+package com.example.devtiro.events;
+
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Counts committed catalog changes. Whatever is built from the catalog notes the generation it was
+ * built at and is built again once the generation has moved on.
+ */
+@Component
+public class CatalogChanges {
+
+    // caches that builders read from are evicted before ORDER, so nothing built under the new generation
+    // sees the old entity; whatever was built before the change is dropped after ORDER
+    public static final int ORDER = 0;
+
+    private final AtomicLong generation = new AtomicLong();
+
+    public long generation() {
+        return generation.get();
+    }
+
+    @Order(ORDER)
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onBookChanged(BookChangedEvent event) {
+        generation.incrementAndGet();
+    }
+
+    // DELETE /books?authorId= announces only the author
+    @Order(ORDER)
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onAuthorChanged(AuthorChangedEvent event) {
+        generation.incrementAndGet();
+    }
+}
@@ -0,0 +1,32 @@
+package com.example.devtiro.mappers.impl;
+
+import com.example.devtiro.domain.dto.AuthorDto;
+import com.example.devtiro.domain.entities.AuthorEntity;
+import com.example.devtiro.mappers.Mapper;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+@Component
+@ConditionalOnProperty(name = "devtiro.mapper.type", havingValue = "direct", matchIfMissing = true)
+public class AuthorDirectMapperImpl implements Mapper<AuthorEntity, AuthorDto> {
+
+    @Override
+    public AuthorDto mapTo(AuthorEntity authorEntity) {
+        if (authorEntity == null)
+            return null;
+
+        return new AuthorDto(authorEntity.getId(), authorEntity.getName(), authorEntity.getAge());
+    }
+
+    @Override
+    public AuthorEntity mapFrom(AuthorDto authorDto) {
+        if (authorDto == null)
+            return null;
+
+        return AuthorEntity.builder()
+                .id(authorDto.getId())
+                .name(authorDto.getName())
+                .age(authorDto.getAge())
+                .build();
+    }
+}
@@ -4,9 +4,11 @@ import com.example.devtiro.domain.dto.AuthorDto;
 import com.example.devtiro.domain.entities.AuthorEntity;
 import com.example.devtiro.mappers.Mapper;
 import org.modelmapper.ModelMapper;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.stereotype.Component;
 
 @Component
+@ConditionalOnProperty(name = "devtiro.mapper.type", havingValue = "modelmapper")
 public class AuthorMapperImpl implements Mapper<AuthorEntity, AuthorDto> {
 
     private final ModelMapper modelMapper;
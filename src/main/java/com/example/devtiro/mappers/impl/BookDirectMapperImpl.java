@@ -0,0 +1,39 @@
+package com.example.devtiro.mappers.impl;
+
+import com.example.devtiro.domain.dto.BookDto;
+import com.example.devtiro.domain.entities.BookEntity;
+import com.example.devtiro.mappers.Mapper;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+@Component
+@ConditionalOnProperty(name = "devtiro.mapper.type", havingValue = "direct", matchIfMissing = true)
+public class BookDirectMapperImpl implements Mapper<BookEntity, BookDto> {
+
+    private final AuthorDirectMapperImpl authorMapper;
+
+    public BookDirectMapperImpl(AuthorDirectMapperImpl authorMapper) {
+        this.authorMapper = authorMapper;
+    }
+
+    @Override
+    public BookDto mapTo(BookEntity bookEntity) {
+        if (bookEntity == null)
+            return null;
+
+        return new BookDto(bookEntity.getIsbn(), bookEntity.getTitle(),
+                authorMapper.mapTo(bookEntity.getAuthorEntity()));
+    }
+
+    @Override
+    public BookEntity mapFrom(BookDto bookDto) {
+        if (bookDto == null)
+            return null;
+
+        return BookEntity.builder()
+                .isbn(bookDto.getIsbn())
+                .title(bookDto.getTitle())
+                .authorEntity(authorMapper.mapFrom(bookDto.getAuthor()))
+                .build();
+    }
+}
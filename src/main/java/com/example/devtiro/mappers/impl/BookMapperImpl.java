@@ -4,9 +4,11 @@ import com.example.devtiro.domain.dto.BookDto;
 import com.example.devtiro.domain.entities.BookEntity;
 import com.example.devtiro.mappers.Mapper;
 import org.modelmapper.ModelMapper;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.stereotype.Component;
 
 @Component
+@ConditionalOnProperty(name = "devtiro.mapper.type", havingValue = "modelmapper")
 public class BookMapperImpl implements Mapper<BookEntity, BookDto> {
 
     private final ModelMapper modelMapper;
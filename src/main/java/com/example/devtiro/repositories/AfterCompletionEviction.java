@@ -0,0 +1,29 @@
+package com.example.devtiro.repositories;
+
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Second-level cache evictions for rows written by native statements, which take no soft lock.
+ * Evicted before the commit, a concurrent load could put the old row back and keep it there until
+ * the region expires, so they run once the transaction has completed.
+ */
+final class AfterCompletionEviction {
+
+    private AfterCompletionEviction() {
+    }
+
+    static void run(Runnable eviction) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            eviction.run();
+            return;
+        }
+
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                eviction.run();
+            }
+        });
+    }
+}
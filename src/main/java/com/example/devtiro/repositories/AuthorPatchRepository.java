@@ -0,0 +1,14 @@
+package com.example.devtiro.repositories;
+
+import com.example.devtiro.domain.entities.AuthorEntity;
+
+import java.util.Optional;
+
+public interface AuthorPatchRepository {
+
+    /**
+     * Sets only the non-null columns in a single statement, if given only while the row is still at
+     * {@code expectedVersion}, and returns the updated author. Empty when no row matched.
+     */
+    Optional<AuthorEntity> patch(Long id, String name, Integer age, Long expectedVersion);
+}
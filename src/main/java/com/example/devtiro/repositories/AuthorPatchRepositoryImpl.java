@@ -0,0 +1,74 @@
+package com.example.devtiro.repositories;
+
+import com.example.devtiro.domain.entities.AuthorEntity;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.Query;
+import org.hibernate.Cache;
+import org.hibernate.SessionFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+class AuthorPatchRepositoryImpl implements AuthorPatchRepository {
+
+    private static final String COLUMNS = "id, name, age, version";
+
+    private final EntityManager entityManager;
+    private final NativeDialect dialect;
+
+    AuthorPatchRepositoryImpl(EntityManager entityManager, EntityManagerFactory entityManagerFactory) {
+        this.entityManager = entityManager;
+        this.dialect = NativeDialect.of(entityManagerFactory);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public Optional<AuthorEntity> patch(Long id, String name, Integer age, Long expectedVersion) {
+        List<String> assignments = new ArrayList<>();
+        if (name != null)
+            assignments.add("name = :name");
+        if (age != null)
+            assignments.add("age = :age");
+        // an empty patch changes nothing, so the ETag must not change either
+        assignments.add(assignments.isEmpty() ? "version = version" : "version = version + 1");
+
+        String update = "UPDATE authors SET " + String.join(", ", assignments) + " WHERE id = :id"
+                + (expectedVersion == null ? "" : " AND version = :version");
+        Optional<String> statement = dialect.returning(update, COLUMNS);
+        if (statement.isEmpty())
+            return findAndPatch(id, name, age, expectedVersion);
+
+        Query query = entityManager.createNativeQuery(statement.get(), AuthorEntity.class)
+                .setParameter("id", id);
+        if (name != null)
+            query.setParameter("name", name);
+        if (age != null)
+            query.setParameter("age", age);
+        if (expectedVersion != null)
+            query.setParameter("version", expectedVersion);
+
+        List<AuthorEntity> authors = query.getResultList();
+
+        // the statement bypasses the second-level cache, and a cached findByName may have matched the old name
+        Cache cache = entityManager.getEntityManagerFactory().unwrap(SessionFactory.class).getCache();
+        AfterCompletionEviction.run(() -> {
+            cache.evict(AuthorEntity.class, id);
+            if (name != null)
+                cache.evictQueryRegions();
+        });
+        return authors.stream().findFirst();
+    }
+
+    private Optional<AuthorEntity> findAndPatch(Long id, String name, Integer age, Long expectedVersion) {
+        AuthorEntity author = entityManager.find(AuthorEntity.class, id);
+        if (author == null || (expectedVersion != null && author.getVersion() != expectedVersion))
+            return Optional.empty();
+
+        Optional.ofNullable(name).ifPresent(author::setName);
+        Optional.ofNullable(age).ifPresent(author::setAge);
+        entityManager.flush();
+        return Optional.of(author);
+    }
+}
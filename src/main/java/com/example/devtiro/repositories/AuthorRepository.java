@@ -1,18 +1,46 @@
 package com.example.devtiro.repositories;
 
 import com.example.devtiro.domain.entities.AuthorEntity;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.repository.PagingAndSortingRepository;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
 import java.util.Optional;
 
 @Repository
-public interface AuthorRepository extends CrudRepository<AuthorEntity, Long> {
+public interface AuthorRepository extends CrudRepository<AuthorEntity, Long>,
+        PagingAndSortingRepository<AuthorEntity, Long>, AuthorPatchRepository {
     Iterable<AuthorEntity> ageLessThan(int age);
 
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"),
+            @QueryHint(name = HibernateHints.HINT_CACHE_REGION, value = "author-by-name")
+    })
     Optional<AuthorEntity> findByName(String name);
 
-    @Query("SELECT a FROM AuthorEntity a WHERE a.age > ?1")
+    // the age index would otherwise decide the order
+    @Query("SELECT a FROM AuthorEntity a WHERE a.age > ?1 ORDER BY a.id")
     Iterable<AuthorEntity> findAuthorsWithAgeGreaterThan(int age);
+
+    Slice<AuthorEntity> findAllBy(Pageable pageable);
+
+    List<AuthorEntity> findAllByOrderByIdAsc(Limit limit);
+
+    List<AuthorEntity> findByIdGreaterThanOrderByIdAsc(Long id, Limit limit);
+
+    @Query("SELECT a.version FROM AuthorEntity a WHERE a.id = ?1")
+    Optional<Long> findVersionById(Long id);
+
+    @Modifying
+    @Query("DELETE FROM AuthorEntity a WHERE a.id = ?1")
+    int removeById(Long id);
 }
@@ -0,0 +1,10 @@
+package com.example.devtiro.repositories;
+
+public interface BookCountRepository {
+
+    /**
+     * Roughly the number of books, without scanning the table where the database keeps statistics.
+     * Elsewhere the exact count, cached until the next catalog change.
+     */
+    long estimateCount();
+}
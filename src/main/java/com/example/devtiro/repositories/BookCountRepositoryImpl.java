@@ -0,0 +1,53 @@
+package com.example.devtiro.repositories;
+
+import com.example.devtiro.events.CatalogChanges;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.springframework.beans.factory.annotation.Value;
+
+import java.time.Duration;
+
+class BookCountRepositoryImpl implements BookCountRepository {
+
+    // the planner's estimate as of the last VACUUM or ANALYZE, -1 if the table was never analyzed
+    private static final String POSTGRESQL_ESTIMATE =
+            "SELECT CAST(reltuples AS bigint) FROM pg_class WHERE oid = CAST('books' AS regclass)";
+
+    private final EntityManager entityManager;
+    private final boolean plannerStatistics;
+    private final CatalogChanges catalogChanges;
+    // writes on other instances, and counts read from a lagging replica, do not move the generation
+    private final Duration timeToLive;
+    private volatile CachedCount cachedCount;
+
+    BookCountRepositoryImpl(EntityManager entityManager, EntityManagerFactory entityManagerFactory,
+                            CatalogChanges catalogChanges,
+                            @Value("${devtiro.count.exact-count-ttl:1m}") Duration timeToLive) {
+        this.entityManager = entityManager;
+        this.plannerStatistics = NativeDialect.of(entityManagerFactory) == NativeDialect.POSTGRESQL;
+        this.catalogChanges = catalogChanges;
+        this.timeToLive = timeToLive;
+    }
+
+    @Override
+    public long estimateCount() {
+        if (plannerStatistics) {
+            long estimate = ((Number) entityManager.createNativeQuery(POSTGRESQL_ESTIMATE).getSingleResult()).longValue();
+            if (estimate >= 0)
+                return estimate;
+        }
+
+        long generation = catalogChanges.generation();
+        long now = System.nanoTime();
+        CachedCount current = cachedCount;
+        if (current != null && current.generation() == generation && now - current.takenAt() < timeToLive.toNanos())
+            return current.count();
+
+        long count = entityManager.createQuery("SELECT count(b) FROM BookEntity b", Long.class).getSingleResult();
+        cachedCount = new CachedCount(generation, count, now);
+        return count;
+    }
+
+    private record CachedCount(long generation, long count, long takenAt) {
+    }
+}
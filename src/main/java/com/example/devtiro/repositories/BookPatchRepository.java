@@ -0,0 +1,15 @@
+package com.example.devtiro.repositories;
+
+import com.example.devtiro.domain.BookVersion;
+import com.example.devtiro.domain.entities.BookEntity;
+
+import java.util.Optional;
+
+public interface BookPatchRepository {
+
+    /**
+     * Sets the title in a single statement unless it is null, if given only while the book and its
+     * author are still at {@code expectedVersion}, and returns the updated book. Empty when no row matched.
+     */
+    Optional<BookEntity> patch(String isbn, String title, BookVersion expectedVersion);
+}
@@ -0,0 +1,67 @@
+package com.example.devtiro.repositories;
+
+import com.example.devtiro.domain.BookVersion;
+import com.example.devtiro.domain.entities.BookEntity;
+import jakarta.persistence.Cache;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.Query;
+
+import java.util.List;
+import java.util.Optional;
+
+class BookPatchRepositoryImpl implements BookPatchRepository {
+
+    private static final String COLUMNS = "isbn, title, author_id, version";
+
+    private final EntityManager entityManager;
+    private final NativeDialect dialect;
+
+    BookPatchRepositoryImpl(EntityManager entityManager, EntityManagerFactory entityManagerFactory) {
+        this.entityManager = entityManager;
+        this.dialect = NativeDialect.of(entityManagerFactory);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public Optional<BookEntity> patch(String isbn, String title, BookVersion expectedVersion) {
+        String update = "UPDATE books SET "
+                + (title == null ? "version = version" : "title = :title, version = version + 1")
+                + " WHERE isbn = :isbn";
+        if (expectedVersion != null)
+            update += " AND version = :version AND " + (expectedVersion.authorVersion() == null
+                    ? "author_id IS NULL"
+                    : "EXISTS (SELECT 1 FROM authors a WHERE a.id = books.author_id AND a.version = :authorVersion)");
+
+        Optional<String> statement = dialect.returning(update, COLUMNS);
+        if (statement.isEmpty())
+            return findAndPatch(isbn, title, expectedVersion);
+
+        Query query = entityManager.createNativeQuery(statement.get(), BookEntity.class)
+                .setParameter("isbn", isbn);
+        if (title != null)
+            query.setParameter("title", title);
+        if (expectedVersion != null) {
+            query.setParameter("version", expectedVersion.version());
+            if (expectedVersion.authorVersion() != null)
+                query.setParameter("authorVersion", expectedVersion.authorVersion());
+        }
+
+        List<BookEntity> books = query.getResultList();
+
+        // the statement bypasses the second-level cache
+        Cache cache = entityManager.getEntityManagerFactory().getCache();
+        AfterCompletionEviction.run(() -> cache.evict(BookEntity.class, isbn));
+        return books.stream().findFirst();
+    }
+
+    private Optional<BookEntity> findAndPatch(String isbn, String title, BookVersion expectedVersion) {
+        BookEntity book = entityManager.find(BookEntity.class, isbn);
+        if (book == null || (expectedVersion != null && !BookVersion.of(book).equals(expectedVersion)))
+            return Optional.empty();
+
+        Optional.ofNullable(title).ifPresent(book::setTitle);
+        entityManager.flush();
+        return Optional.of(book);
+    }
+}
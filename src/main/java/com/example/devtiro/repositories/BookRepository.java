@@ -1,10 +1,81 @@
 package com.example.devtiro.repositories;
 
+import com.example.devtiro.domain.BookSummary;
+import com.example.devtiro.domain.BookVersion;
 import com.example.devtiro.domain.entities.BookEntity;
-import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.jpa.repository.EntityGraph;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.CrudRepository;
 import org.springframework.data.repository.PagingAndSortingRepository;
 
+import jakarta.persistence.QueryHint;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
 public interface BookRepository extends  CrudRepository<BookEntity, String>,
-        PagingAndSortingRepository<BookEntity,String> {
+        PagingAndSortingRepository<BookEntity,String>, BookUpsertRepository, BookPatchRepository,
+        BookSearchRepository, BookCountRepository {
+
+    @Override
+    @EntityGraph(attributePaths = "authorEntity")
+    Page<BookEntity> findAll(Pageable pageable);
+
+    // reads one row past the page instead of counting
+    @EntityGraph(attributePaths = "authorEntity")
+    Slice<BookEntity> findAllBy(Pageable pageable);
+
+    // the listings without the author skip the join altogether
+    @Query(value = "SELECT new com.example.devtiro.domain.BookSummary(b.isbn, b.title) FROM BookEntity b",
+            countQuery = "SELECT count(b) FROM BookEntity b")
+    Page<BookSummary> findAllSummaries(Pageable pageable);
+
+    @Query("SELECT new com.example.devtiro.domain.BookSummary(b.isbn, b.title) FROM BookEntity b")
+    Slice<BookSummary> findSummariesBy(Pageable pageable);
+
+    @Override
+    @EntityGraph(attributePaths = "authorEntity")
+    Iterable<BookEntity> findAllById(Iterable<String> isbns);
+
+    @EntityGraph(attributePaths = "authorEntity")
+    List<BookEntity> findAllByOrderByIsbnAsc(Limit limit);
+
+    @EntityGraph(attributePaths = "authorEntity")
+    List<BookEntity> findByIsbnGreaterThanOrderByIsbnAsc(String isbn, Limit limit);
+
+    // both walk the (author_id, isbn) index in order and never touch the authors table
+    @Query("SELECT new com.example.devtiro.domain.BookSummary(b.isbn, b.title) " +
+            "FROM BookEntity b WHERE b.authorEntity.id = ?1 ORDER BY b.isbn")
+    List<BookSummary> findSummariesByAuthorId(Long authorId, Limit limit);
+
+    @Query("SELECT new com.example.devtiro.domain.BookSummary(b.isbn, b.title) " +
+            "FROM BookEntity b WHERE b.authorEntity.id = ?1 AND b.isbn > ?2 ORDER BY b.isbn")
+    List<BookSummary> findSummariesByAuthorIdAfter(Long authorId, String isbn, Limit limit);
+
+    @Query("SELECT b FROM BookEntity b LEFT JOIN FETCH b.authorEntity")
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    Stream<BookEntity> streamAllWithAuthor();
+
+    @Query("SELECT new com.example.devtiro.domain.BookVersion(b.version, a.version) " +
+            "FROM BookEntity b LEFT JOIN b.authorEntity a WHERE b.isbn = ?1")
+    Optional<BookVersion> findVersionByIsbn(String isbn);
+
+    @Modifying
+    @Query("DELETE FROM BookEntity b WHERE b.isbn IN ?1")
+    int removeByIsbnIn(Collection<String> isbns);
+
+    @Modifying
+    @Query("DELETE FROM BookEntity b WHERE b.authorEntity.id = ?1")
+    int removeByAuthorId(Long authorId);
 }
@@ -0,0 +1,14 @@
+package com.example.devtiro.repositories;
+
+import com.example.devtiro.domain.entities.BookEntity;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+
+public interface BookSearchRepository {
+
+    /**
+     * Books whose title or author name matches any word of the query, most relevant first, with
+     * their authors loaded. The sort of the pageable is ignored.
+     */
+    Page<BookEntity> search(String query, Pageable pageable);
+}
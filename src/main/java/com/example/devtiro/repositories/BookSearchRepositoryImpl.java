@@ -0,0 +1,101 @@
+package com.example.devtiro.repositories;
+
+import com.example.devtiro.domain.entities.BookEntity;
+import com.example.devtiro.events.CatalogChanges;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.support.PageableExecutionUtils;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+class BookSearchRepositoryImpl implements BookSearchRepository {
+
+    // books.search_vector and authors.search_vector are generated columns with GIN indexes, see
+    // V3__add_full_text_search.sql; the words are OR-ed so that rows matching more of them rank higher
+    private static final String POSTGRESQL_HITS =
+            "WITH q AS (SELECT " +
+            "CAST(replace(CAST(plainto_tsquery('english', ?1) AS text), '&', '|') AS tsquery) AS title_query, " +
+            "CAST(replace(CAST(plainto_tsquery('simple', ?1) AS text), '&', '|') AS tsquery) AS name_query), " +
+            "hits AS (" +
+            "SELECT b.isbn FROM books b, q WHERE b.search_vector @@ q.title_query " +
+            "UNION " +
+            "SELECT b.isbn FROM authors a JOIN books b ON b.author_id = a.id, q WHERE a.search_vector @@ q.name_query) ";
+
+    private static final String POSTGRESQL_SEARCH = POSTGRESQL_HITS +
+            "SELECT b.isbn FROM hits h JOIN books b ON b.isbn = h.isbn LEFT JOIN authors a ON a.id = b.author_id, q " +
+            "ORDER BY ts_rank(b.search_vector, q.title_query) + coalesce(ts_rank(a.search_vector, q.name_query), 0) DESC, " +
+            "b.isbn " +
+            "LIMIT ?2 OFFSET ?3";
+
+    private static final String POSTGRESQL_COUNT = POSTGRESQL_HITS + "SELECT count(*) FROM hits";
+
+    private final EntityManager entityManager;
+    private final boolean fullTextIndex;
+    private final CatalogChanges catalogChanges;
+    private volatile IndexSnapshot snapshot;
+
+    BookSearchRepositoryImpl(EntityManager entityManager, EntityManagerFactory entityManagerFactory,
+                             CatalogChanges catalogChanges) {
+        this.entityManager = entityManager;
+        this.fullTextIndex = NativeDialect.of(entityManagerFactory) == NativeDialect.POSTGRESQL;
+        this.catalogChanges = catalogChanges;
+    }
+
+    @Override
+    public Page<BookEntity> search(String query, Pageable pageable) {
+        if (fullTextIndex) {
+            @SuppressWarnings("unchecked")
+            List<String> isbns = entityManager.createNativeQuery(POSTGRESQL_SEARCH)
+                    .setParameter(1, query)
+                    .setParameter(2, pageable.getPageSize())
+                    .setParameter(3, pageable.getOffset())
+                    .getResultList();
+            return PageableExecutionUtils.getPage(findWithAuthors(isbns), pageable, () ->
+                    ((Number) entityManager.createNativeQuery(POSTGRESQL_COUNT)
+                            .setParameter(1, query)
+                            .getSingleResult()).longValue());
+        }
+
+        List<String> hits = index().search(query);
+        int from = (int) Math.min(pageable.getOffset(), hits.size());
+        int to = Math.min(from + pageable.getPageSize(), hits.size());
+        return PageableExecutionUtils.getPage(findWithAuthors(hits.subList(from, to)), pageable, hits::size);
+    }
+
+    // one query for the whole page, returned in the order of the ranked isbns
+    private List<BookEntity> findWithAuthors(List<String> isbns) {
+        if (isbns.isEmpty())
+            return List.of();
+
+        Map<String, BookEntity> books = entityManager.createQuery(
+                        "SELECT b FROM BookEntity b LEFT JOIN FETCH b.authorEntity WHERE b.isbn IN ?1", BookEntity.class)
+                .setParameter(1, isbns)
+                .getResultStream()
+                .collect(Collectors.toMap(BookEntity::getIsbn, Function.identity()));
+        return isbns.stream().map(books::get).filter(Objects::nonNull).toList();
+    }
+
+    private InvertedBookIndex index() {
+        long generation = catalogChanges.generation();
+        IndexSnapshot current = snapshot;
+        if (current != null && current.generation() == generation)
+            return current.index();
+
+        InvertedBookIndex index = new InvertedBookIndex();
+        entityManager.createQuery(
+                        "SELECT b.isbn, b.title, a.name FROM BookEntity b LEFT JOIN b.authorEntity a", Object[].class)
+                .getResultStream()
+                .forEach(row -> index.add((String) row[0], (String) row[1], (String) row[2]));
+        snapshot = new IndexSnapshot(generation, index);
+        return index;
+    }
+
+    private record IndexSnapshot(long generation, InvertedBookIndex index) {
+    }
+}
@@ -0,0 +1,12 @@
+package com.example.devtiro.repositories;
+
+import com.example.devtiro.domain.entities.BookEntity;
+
+public interface BookUpsertRepository {
+
+    /**
+     * Inserts the book or replaces the stored one in a single statement and copies the stored
+     * version onto it. Returns {@code true} when the row was inserted.
+     */
+    boolean upsert(BookEntity book);
+}
@@ -0,0 +1,77 @@
+package com.example.devtiro.repositories;
+
+import com.example.devtiro.domain.entities.AuthorEntity;
+import com.example.devtiro.domain.entities.BookEntity;
+import jakarta.persistence.Cache;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+
+class BookUpsertRepositoryImpl implements BookUpsertRepository {
+
+    // xmax is only set on a row version written by an update
+    private static final String POSTGRESQL_UPSERT =
+            "INSERT INTO books (isbn, title, author_id, version) VALUES (?1, ?2, ?3, 0) " +
+            "ON CONFLICT (isbn) DO UPDATE SET title = EXCLUDED.title, author_id = EXCLUDED.author_id, " +
+            "version = books.version + 1 " +
+            "RETURNING version, (xmax = 0)";
+
+    // an updated row always ends up above the initial version
+    private static final String H2_UPSERT =
+            "SELECT version, version = 0 FROM FINAL TABLE (" +
+            "MERGE INTO books b USING (VALUES (?1, ?2, CAST(?3 AS BIGINT))) s (isbn, title, author_id) " +
+            "ON b.isbn = s.isbn " +
+            "WHEN MATCHED THEN UPDATE SET title = s.title, author_id = s.author_id, version = b.version + 1 " +
+            "WHEN NOT MATCHED THEN INSERT (isbn, title, author_id, version) " +
+            "VALUES (s.isbn, s.title, s.author_id, 0))";
+
+    private final EntityManager entityManager;
+    private final String upsertSql;
+
+    BookUpsertRepositoryImpl(EntityManager entityManager, EntityManagerFactory entityManagerFactory) {
+        this.entityManager = entityManager;
+        this.upsertSql = switch (NativeDialect.of(entityManagerFactory)) {
+            case POSTGRESQL -> POSTGRESQL_UPSERT;
+            case H2 -> H2_UPSERT;
+            case OTHER -> null;
+        };
+    }
+
+    @Override
+    public boolean upsert(BookEntity book) {
+        if (upsertSql == null)
+            return mergeUpsert(book);
+
+        AuthorEntity author = book.getAuthorEntity();
+        if (author != null)
+            // a newly persisted author has to be inserted before the book references it
+            entityManager.flush();
+
+        Object[] row = (Object[]) entityManager.createNativeQuery(upsertSql)
+                .setParameter(1, book.getIsbn())
+                .setParameter(2, book.getTitle())
+                .setParameter(3, author == null ? null : author.getId())
+                .getSingleResult();
+
+        // the statement bypasses the second-level cache
+        Cache cache = entityManager.getEntityManagerFactory().getCache();
+        String isbn = book.getIsbn();
+        AfterCompletionEviction.run(() -> cache.evict(BookEntity.class, isbn));
+        book.setVersion(((Number) row[0]).longValue());
+        return (Boolean) row[1];
+    }
+
+    private boolean mergeUpsert(BookEntity book) {
+        BookEntity existingBook = entityManager.find(BookEntity.class, book.getIsbn());
+        if (existingBook == null) {
+            entityManager.persist(book);
+            entityManager.flush();
+            return true;
+        }
+
+        existingBook.setTitle(book.getTitle());
+        existingBook.setAuthorEntity(book.getAuthorEntity());
+        entityManager.flush();
+        book.setVersion(existingBook.getVersion());
+        return false;
+    }
+}
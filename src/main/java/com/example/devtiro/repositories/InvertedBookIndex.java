@@ -0,0 +1,52 @@
+package com.example.devtiro.repositories;
+
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+/**
+ * Word to book postings over titles and author names, standing in for the full-text index on
+ * databases without one. Scores follow the PostgreSQL ranking: any word may match, and a word in
+ * the title counts more than one in the author's name.
+ */
+final class InvertedBookIndex {
+
+    private static final double TITLE_WEIGHT = 1.0;
+    private static final double NAME_WEIGHT = 0.4;
+    private static final Pattern NON_WORD = Pattern.compile("[^\\p{L}\\p{N}]+");
+
+    private final Map<String, Map<String, Double>> postings = new HashMap<>();
+
+    void add(String isbn, String title, String authorName) {
+        addWords(isbn, title, TITLE_WEIGHT);
+        addWords(isbn, authorName, NAME_WEIGHT);
+    }
+
+    List<String> search(String query) {
+        Map<String, Double> scores = new HashMap<>();
+        for (String word : new LinkedHashSet<>(words(query)))
+            postings.getOrDefault(word, Map.of()).forEach((isbn, score) -> scores.merge(isbn, score, Double::sum));
+
+        return scores.entrySet().stream()
+                .sorted(Map.Entry.<String, Double>comparingByValue().reversed()
+                        .thenComparing(Map.Entry.comparingByKey()))
+                .map(Map.Entry::getKey)
+                .toList();
+    }
+
+    private void addWords(String isbn, String text, double weight) {
+        for (String word : words(text))
+            postings.computeIfAbsent(word, key -> new HashMap<>()).merge(isbn, weight, Double::sum);
+    }
+
+    private static List<String> words(String text) {
+        if (text == null)
+            return List.of();
+        return NON_WORD.splitAsStream(text.toLowerCase(Locale.ROOT))
+                .filter(word -> !word.isEmpty())
+                .toList();
+    }
+}
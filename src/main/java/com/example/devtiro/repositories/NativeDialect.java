@@ -0,0 +1,37 @@
+package com.example.devtiro.repositories;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.dialect.Dialect;
+import org.hibernate.dialect.H2Dialect;
+import org.hibernate.dialect.PostgreSQLDialect;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+
+import java.util.Optional;
+
+/**
+ * The databases the native statements are written for; anything else goes through plain JPA.
+ */
+enum NativeDialect {
+    POSTGRESQL,
+    H2,
+    OTHER;
+
+    static NativeDialect of(EntityManagerFactory entityManagerFactory) {
+        Dialect dialect = entityManagerFactory.unwrap(SessionFactoryImplementor.class).getJdbcServices().getDialect();
+        if (dialect instanceof PostgreSQLDialect)
+            return POSTGRESQL;
+        if (dialect instanceof H2Dialect)
+            return H2;
+        return OTHER;
+    }
+
+    // reads back the rows written by an INSERT, UPDATE or MERGE in the same statement; empty where
+    // the database has no such form and the callers go through JPA instead
+    Optional<String> returning(String dml, String columns) {
+        return switch (this) {
+            case POSTGRESQL -> Optional.of(dml + " RETURNING " + columns);
+            case H2 -> Optional.of("SELECT " + columns + " FROM FINAL TABLE (" + dml + ")");
+            case OTHER -> Optional.empty();
+        };
+    }
+}
@@ -1,6 +1,8 @@
 package com.example.devtiro.services;
 
 import com.example.devtiro.domain.entities.AuthorEntity;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 
 import java.util.List;
 import java.util.Optional;
@@ -10,13 +12,21 @@ public interface AuthorService {
 
     List<AuthorEntity> findAll();
 
+    Slice<AuthorEntity> findAll(Pageable pageable);
+
+    List<AuthorEntity> findAllAfter(Long id, int limit);
+
     Optional<AuthorEntity> findOne(Long id);
 
     Optional<AuthorEntity> findByName(String name);
 
+    Optional<Long> findVersion(Long id);
+
     boolean isExists(Long id);
 
-    AuthorEntity partialUpdate(Long id, AuthorEntity authorEntity);
+    AuthorEntity update(Long id, AuthorEntity authorEntity, Long expectedVersion);
+
+    Optional<AuthorEntity> partialUpdate(Long id, AuthorEntity authorEntity, Long expectedVersion);
 
-    void delete(Long id);
+    int delete(Long id);
 }
@@ -0,0 +1,10 @@
+package com.example.devtiro.services;
+
+import com.example.devtiro.domain.dto.BookImportResultDto;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+public interface BookImportService {
+    BookImportResultDto importBooks(InputStream ndjson) throws IOException;
+}
@@ -1,24 +1,54 @@
 package com.example.devtiro.services;
 
+import com.example.devtiro.domain.BookSummary;
+import com.example.devtiro.domain.CountMode;
+import com.example.devtiro.domain.BookVersion;
 import com.example.devtiro.domain.entities.BookEntity;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.function.Consumer;
 
 public interface BookService {
     BookEntity createUpdateBook(String isbn, BookEntity book);
 
+    boolean upsertBook(String isbn, BookEntity book);
+
+    BookEntity createUpdateBook(String isbn, BookEntity book, BookVersion expectedVersion);
+
+    Map<String, Boolean> createUpdateBooks(List<BookEntity> books);
+
     List<BookEntity> findAll();
 
     Page<BookEntity> findAll(Pageable pageable);
 
+    Slice<BookEntity> findAll(Pageable pageable, CountMode count);
+
+    Slice<BookSummary> findSummaries(Pageable pageable, CountMode count);
+
+    List<BookEntity> findAllAfter(String isbn, int limit);
+
+    List<BookSummary> findByAuthorAfter(Long authorId, String isbn, int limit);
+
+    Page<BookEntity> search(String query, Pageable pageable);
+
+    void exportBooks(Consumer<BookEntity> action);
+
     Optional<BookEntity> findOne(String isbn);
 
+    Optional<BookVersion> findVersion(String isbn);
+
     boolean isExists(String isbn);
 
-    BookEntity partialUpdate(String isbn, BookEntity bookEntity);
+    Optional<BookEntity> partialUpdate(String isbn, BookEntity bookEntity, BookVersion expectedVersion);
+
+    int delete(String isbn);
+
+    int deleteAll(List<String> isbns);
 
-    void delete(String isbn);
+    int deleteByAuthor(Long authorId);
 }
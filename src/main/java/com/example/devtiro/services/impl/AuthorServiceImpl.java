@@ -1,61 +1,129 @@
 package com.example.devtiro.services.impl;
 
+import com.example.devtiro.config.CacheConfig;
 import com.example.devtiro.domain.entities.AuthorEntity;
+import com.example.devtiro.events.AuthorChangedEvent;
 import com.example.devtiro.repositories.AuthorRepository;
 import com.example.devtiro.services.AuthorService;
+import io.micrometer.core.annotation.Timed;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
 import java.util.Optional;
 import java.util.stream.StreamSupport;
 
 @Service
+@Timed("devtiro.service")
 public class AuthorServiceImpl implements AuthorService {
     @Override
-    public void delete(Long id) {
-        authorRepository.deleteById(id);
+    @Transactional
+    public int delete(Long id) {
+        int deleted = authorRepository.removeById(id);
+        eventPublisher.publishEvent(new AuthorChangedEvent(id));
+        return deleted;
     }
 
     private final AuthorRepository authorRepository;
+    private final ApplicationEventPublisher eventPublisher;
 
-    public AuthorServiceImpl(AuthorRepository authorRepository) {
+    public AuthorServiceImpl(AuthorRepository authorRepository, ApplicationEventPublisher eventPublisher) {
         this.authorRepository = authorRepository;
+        this.eventPublisher = eventPublisher;
     }
 
     @Override
     public AuthorEntity save(AuthorEntity authorEntity) {
-        return authorRepository.save(authorEntity);
+        AuthorEntity savedAuthor = authorRepository.save(authorEntity);
+        eventPublisher.publishEvent(new AuthorChangedEvent(savedAuthor.getId()));
+        return savedAuthor;
     }
 
     @Override
+    @Transactional(readOnly = true)
     public List<AuthorEntity> findAll() {
         Iterable<AuthorEntity> authors = authorRepository.findAll();
         return StreamSupport.stream(authors.spliterator(), false).toList();
     }
 
     @Override
+    @Transactional(readOnly = true)
+    public Slice<AuthorEntity> findAll(Pageable pageable) {
+        return authorRepository.findAllBy(pageable);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<AuthorEntity> findAllAfter(Long id, int limit) {
+        return id == null
+                ? authorRepository.findAllByOrderByIdAsc(Limit.of(limit))
+                : authorRepository.findByIdGreaterThanOrderByIdAsc(id, Limit.of(limit));
+    }
+
+    @Override
+    @Cacheable(cacheNames = CacheConfig.AUTHORS, key = "#id", unless = "#result == null")
+    @Transactional(readOnly = true)
     public Optional<AuthorEntity> findOne(Long id) {
         return authorRepository.findById(id);
     }
 
     @Override
+    @Transactional(readOnly = true)
     public Optional<AuthorEntity> findByName(String name){
         return authorRepository.findByName(name);
     }
 
     @Override
+    @Transactional(readOnly = true)
+    public Optional<Long> findVersion(Long id) {
+        return authorRepository.findVersionById(id);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
     public boolean isExists(Long id) {
         return authorRepository.existsById(id);
     }
 
     @Override
-    public AuthorEntity partialUpdate(Long id, AuthorEntity authorEntity) {
-        authorEntity.setId(id);
+    @Transactional
+    public AuthorEntity update(Long id, AuthorEntity authorEntity, Long expectedVersion) {
+        AuthorEntity existingAuthor = findForUpdate(id, expectedVersion);
+        existingAuthor.setName(authorEntity.getName());
+        existingAuthor.setAge(authorEntity.getAge());
+        eventPublisher.publishEvent(new AuthorChangedEvent(id));
+        return existingAuthor;
+    }
+
+    @Override
+    @Transactional
+    public Optional<AuthorEntity> partialUpdate(Long id, AuthorEntity authorEntity, Long expectedVersion) {
+        Optional<AuthorEntity> patchedAuthor = authorRepository.patch(
+                id, authorEntity.getName(), authorEntity.getAge(), expectedVersion);
+        if (patchedAuthor.isEmpty()) {
+            // only a miss on a conditional patch needs the second look to tell 412 from 404
+            if (expectedVersion != null && authorRepository.existsById(id))
+                throw new OptimisticLockingFailureException("Author " + id + " is not at version " + expectedVersion);
+            return Optional.empty();
+        }
+
+        eventPublisher.publishEvent(new AuthorChangedEvent(id));
+        return patchedAuthor;
+    }
 
-        return authorRepository.findById(id).map(existingAuthor -> {
-            Optional.ofNullable(authorEntity.getName()).ifPresent(existingAuthor::setName);
-            Optional.ofNullable(authorEntity.getAge()).ifPresent(existingAuthor::setAge);
-            return  authorRepository.save(existingAuthor);
-        }).orElseThrow(() -> new RuntimeException("Author does not exist"));
+    // the flush only updates the row if it is still at the version loaded here
+    private AuthorEntity findForUpdate(Long id, Long expectedVersion) {
+        AuthorEntity existingAuthor = authorRepository.findById(id)
+                .orElseThrow(() -> new RuntimeException("Author does not exist"));
+        if (expectedVersion != null && existingAuthor.getVersion() != expectedVersion)
+            throw new OptimisticLockingFailureException(
+                    "Author " + id + " is at version " + existingAuthor.getVersion());
+        return existingAuthor;
     }
 }
@@ -0,0 +1,228 @@
+package com.example.devtiro.services.impl;
+
+import com.example.devtiro.domain.dto.BookDto;
+import com.example.devtiro.domain.dto.BookImportResultDto;
+import com.example.devtiro.domain.entities.BookEntity;
+import com.example.devtiro.mappers.Mapper;
+import com.example.devtiro.services.BookImportService;
+import com.example.devtiro.services.BookService;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.java.Log;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+@Service
+@Log
+public class BookImportServiceImpl implements BookImportService {
+
+    private static final int MAX_REPORTED_ERRORS = 100;
+    private static final Chunk END = new Chunk(List.of(), List.of());
+
+    private final BookService bookService;
+    private final Mapper<BookEntity, BookDto> bookMapper;
+    private final ObjectReader bookReader;
+    private final ThreadPoolTaskExecutor writerExecutor;
+    private final Duration writerStartTimeout;
+    private final int chunkSize;
+    private final int queueCapacity;
+
+    // the writers get threads of their own: on a shared executor, long exports could keep them from
+    // ever starting while the request waits for them
+    public BookImportServiceImpl(BookService bookService,
+                                 Mapper<BookEntity, BookDto> bookMapper,
+                                 ObjectMapper objectMapper,
+                                 @Value("${devtiro.import.chunk-size:500}") int chunkSize,
+                                 @Value("${devtiro.import.queue-capacity:4}") int queueCapacity,
+                                 @Value("${devtiro.import.writers:2}") int writers,
+                                 @Value("${devtiro.import.pending-writers:8}") int pendingWriters,
+                                 @Value("${devtiro.import.writer-start-timeout:30s}") Duration writerStartTimeout) {
+        this.bookService = bookService;
+        this.bookMapper = bookMapper;
+        this.bookReader = objectMapper.readerFor(BookDto.class);
+        this.chunkSize = chunkSize;
+        this.queueCapacity = queueCapacity;
+        this.writerStartTimeout = writerStartTimeout;
+        this.writerExecutor = new ThreadPoolTaskExecutor();
+        this.writerExecutor.setCorePoolSize(writers);
+        this.writerExecutor.setMaxPoolSize(writers);
+        this.writerExecutor.setQueueCapacity(pendingWriters);
+        this.writerExecutor.setThreadNamePrefix("book-import-");
+        this.writerExecutor.initialize();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        writerExecutor.shutdown();
+    }
+
+    @Override
+    public BookImportResultDto importBooks(InputStream ndjson) throws IOException {
+        BlockingQueue<Chunk> queue = new ArrayBlockingQueue<>(queueCapacity);
+        AtomicLong accepted = new AtomicLong();
+        AtomicLong rejected = new AtomicLong();
+        List<String> errors = Collections.synchronizedList(new ArrayList<>());
+
+        // a full pool with a full backlog turns the import away at once
+        Writer writer = new Writer(() -> writeChunks(queue, accepted, rejected, errors));
+
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(ndjson, StandardCharsets.UTF_8))) {
+            Chunk chunk = new Chunk(new ArrayList<>(chunkSize), new ArrayList<>(chunkSize));
+            long lineNumber = 0;
+            String line;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                if (line.isBlank())
+                    continue;
+
+                try {
+                    BookDto bookDto = bookReader.readValue(line);
+                    if (bookDto.getIsbn() == null || bookDto.getIsbn().isBlank()) {
+                        reject(rejected, errors, "line " + lineNumber + ": missing isbn");
+                        continue;
+                    }
+                    chunk.books().add(bookMapper.mapFrom(bookDto));
+                    chunk.lines().add(lineNumber);
+                } catch (JsonProcessingException e) {
+                    reject(rejected, errors, "line " + lineNumber + ": " + e.getOriginalMessage());
+                    continue;
+                }
+
+                if (chunk.books().size() == chunkSize) {
+                    enqueue(queue, chunk, writer);
+                    chunk = new Chunk(new ArrayList<>(chunkSize), new ArrayList<>(chunkSize));
+                }
+            }
+            if (!chunk.books().isEmpty())
+                enqueue(queue, chunk, writer);
+        } catch (IOException | RuntimeException e) {
+            // the writer still has to be let go, but the failure that stopped the import is the one to report
+            try {
+                enqueue(queue, END, writer);
+            } catch (RuntimeException endFailure) {
+                e.addSuppressed(endFailure);
+            }
+            throw e;
+        }
+
+        enqueue(queue, END, writer);
+        writer.join();
+        return new BookImportResultDto(accepted.get(), rejected.get(), List.copyOf(errors));
+    }
+
+    // every chunk is written in its own transaction, so the persistence context is dropped between chunks
+    private void writeChunks(BlockingQueue<Chunk> queue, AtomicLong accepted, AtomicLong rejected, List<String> errors) {
+        try {
+            Chunk chunk;
+            while ((chunk = queue.take()) != END) {
+                try {
+                    bookService.createUpdateBooks(chunk.books());
+                    accepted.addAndGet(chunk.books().size());
+                } catch (RuntimeException e) {
+                    log.warning("Rejected import chunk: " + e.getMessage());
+                    rejected.addAndGet(chunk.books().size());
+                    reject(errors, "lines " + chunk.lines().get(0) + "-" + chunk.lines().get(chunk.lines().size() - 1)
+                            + ": " + e.getMessage());
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void enqueue(BlockingQueue<Chunk> queue, Chunk chunk, Writer writer) {
+        try {
+            while (!queue.offer(chunk, 1, TimeUnit.SECONDS)) {
+                if (writer.future.isDone())
+                    throw new IllegalStateException("Book import writer stopped");
+                writer.checkStarted();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Book import interrupted", e);
+        }
+    }
+
+    private static void reject(AtomicLong rejected, List<String> errors, String error) {
+        rejected.incrementAndGet();
+        reject(errors, error);
+    }
+
+    private static void reject(List<String> errors, String error) {
+        synchronized (errors) {
+            if (errors.size() < MAX_REPORTED_ERRORS)
+                errors.add(error);
+        }
+    }
+
+    private record Chunk(List<BookEntity> books, List<Long> lines) {
+    }
+
+    private enum WriterState {
+        PENDING,
+        RUNNING,
+        ABANDONED
+    }
+
+    // whichever side moves the writer out of PENDING first decides whether it ever runs
+    private final class Writer {
+
+        private final AtomicReference<WriterState> state = new AtomicReference<>(WriterState.PENDING);
+        private final long startDeadline = System.nanoTime() + writerStartTimeout.toNanos();
+        private final CompletableFuture<Void> future;
+
+        Writer(Runnable work) {
+            future = CompletableFuture.runAsync(() -> {
+                if (state.compareAndSet(WriterState.PENDING, WriterState.RUNNING))
+                    work.run();
+            }, writerExecutor);
+        }
+
+        void checkStarted() {
+            if (state.get() == WriterState.ABANDONED
+                    || System.nanoTime() - startDeadline > 0 && state.compareAndSet(WriterState.PENDING, WriterState.ABANDONED))
+                throw new RejectedExecutionException("Book import writer did not start within " + writerStartTimeout);
+        }
+
+        void join() {
+            try {
+                while (true) {
+                    try {
+                        future.get(1, TimeUnit.SECONDS);
+                        return;
+                    } catch (TimeoutException e) {
+                        checkStarted();
+                    }
+                }
+            } catch (ExecutionException e) {
+                throw new CompletionException(e.getCause());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Book import interrupted", e);
+            }
+        }
+    }
+}
@@ -1,63 +1,344 @@
 package com.example.devtiro.services.impl;
 
+import com.example.devtiro.config.CacheConfig;
+import com.example.devtiro.domain.BookSummary;
+import com.example.devtiro.domain.CountMode;
+import com.example.devtiro.domain.BookVersion;
+import com.example.devtiro.domain.entities.AuthorEntity;
 import com.example.devtiro.domain.entities.BookEntity;
+import com.example.devtiro.events.AuthorChangedEvent;
+import com.example.devtiro.events.BookChangedEvent;
+import com.example.devtiro.repositories.AuthorRepository;
 import com.example.devtiro.repositories.BookRepository;
 import com.example.devtiro.services.BookService;
+import io.micrometer.core.annotation.Timed;
+import jakarta.persistence.EntityManager;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.support.PageableExecutionUtils;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 import java.util.stream.StreamSupport;
 
 @Service
+@Timed("devtiro.service")
 public class BookServiceImpl implements BookService {
 
+    // keeps the IN list well below the bind parameter limits of the drivers
+    private static final int DELETE_CHUNK_SIZE = 1000;
+
     private final BookRepository bookRepository;
+    private final AuthorRepository authorRepository;
+    private final EntityManager entityManager;
+    private final ApplicationEventPublisher eventPublisher;
 
-    public BookServiceImpl(BookRepository bookRepository) {
+    public BookServiceImpl(BookRepository bookRepository, AuthorRepository authorRepository,
+                           EntityManager entityManager, ApplicationEventPublisher eventPublisher) {
         this.bookRepository = bookRepository;
+        this.authorRepository = authorRepository;
+        this.entityManager = entityManager;
+        this.eventPublisher = eventPublisher;
     }
 
     @Override
+    @Transactional
     public BookEntity createUpdateBook(String isbn, BookEntity book) {
+        upsertBook(isbn, book);
+        return book;
+    }
+
+    @Override
+    @Transactional
+    public boolean upsertBook(String isbn, BookEntity book) {
         book.setIsbn(isbn);
-        return bookRepository.save(book);
+        book.setAuthorEntity(resolveAuthor(book.getAuthorEntity()));
+        boolean created = bookRepository.upsert(book);
+        publishChanged(book);
+        return created;
+    }
+
+    @Override
+    @Transactional
+    public BookEntity createUpdateBook(String isbn, BookEntity book, BookVersion expectedVersion) {
+        Optional<BookEntity> existingBook = bookRepository.findById(isbn);
+        checkVersion(isbn, existingBook, expectedVersion);
+
+        AuthorEntity author = resolveAuthor(book.getAuthorEntity());
+        BookEntity savedBook = existingBook.map(managedBook -> {
+            managedBook.setTitle(book.getTitle());
+            managedBook.setAuthorEntity(author);
+            return managedBook;
+        }).orElseGet(() -> {
+            book.setIsbn(isbn);
+            book.setAuthorEntity(author);
+            entityManager.persist(book);
+            return book;
+        });
+        publishChanged(savedBook);
+        return savedBook;
+    }
+
+    @Override
+    @Transactional
+    public Map<String, Boolean> createUpdateBooks(List<BookEntity> books) {
+        // the last occurrence of a duplicated ISBN wins, reported under the position of its first one
+        Map<String, BookEntity> booksByIsbn = new LinkedHashMap<>();
+        books.forEach(book -> booksByIsbn.put(book.getIsbn(), book));
+
+        Map<String, BookEntity> existingBooks = new HashMap<>();
+        bookRepository.findAllById(booksByIsbn.keySet())
+                .forEach(book -> existingBooks.put(book.getIsbn(), book));
+
+        List<Long> authorIds = booksByIsbn.values().stream()
+                .map(BookEntity::getAuthorEntity)
+                .filter(Objects::nonNull)
+                .map(AuthorEntity::getId)
+                .filter(Objects::nonNull)
+                .distinct()
+                .toList();
+        Map<Long, AuthorEntity> authorsById = new HashMap<>();
+        authorRepository.findAllById(authorIds)
+                .forEach(author -> authorsById.put(author.getId(), author));
+        Map<AuthorEntity, AuthorEntity> newAuthors = new IdentityHashMap<>();
+
+        Map<String, Boolean> created = new LinkedHashMap<>();
+        Set<Long> changedAuthorIds = new HashSet<>();
+        booksByIsbn.forEach((isbn, book) -> {
+            AuthorEntity author = resolveAuthor(book.getAuthorEntity(), authorsById, newAuthors);
+            BookEntity existingBook = existingBooks.get(isbn);
+            if (existingBook != null) {
+                existingBook.setTitle(book.getTitle());
+                existingBook.setAuthorEntity(author);
+                created.put(isbn, false);
+            } else {
+                book.setAuthorEntity(author);
+                entityManager.persist(book);
+                created.put(isbn, true);
+            }
+            if (author != null)
+                changedAuthorIds.add(author.getId());
+            eventPublisher.publishEvent(new BookChangedEvent(isbn));
+        });
+        changedAuthorIds.forEach(authorId -> eventPublisher.publishEvent(new AuthorChangedEvent(authorId)));
+        return created;
+    }
+
+    private AuthorEntity resolveAuthor(AuthorEntity author, Map<Long, AuthorEntity> authorsById,
+                                       Map<AuthorEntity, AuthorEntity> newAuthors) {
+        if (author == null)
+            return null;
+
+        if (author.getId() != null) {
+            AuthorEntity existingAuthor = authorsById.get(author.getId());
+            if (existingAuthor != null) {
+                existingAuthor.setName(author.getName());
+                existingAuthor.setAge(author.getAge());
+                return existingAuthor;
+            }
+        }
+
+        // authors are told apart by identity only: an unknown id is created once, an author without
+        // an id once per instance, however alike their names and ages are
+        return newAuthors.computeIfAbsent(author, key -> {
+            AuthorEntity newAuthor = AuthorEntity.builder().name(author.getName()).age(author.getAge()).build();
+            entityManager.persist(newAuthor);
+            if (author.getId() != null)
+                authorsById.put(author.getId(), newAuthor);
+            return newAuthor;
+        });
+    }
+
+    private AuthorEntity resolveAuthor(AuthorEntity author) {
+        Map<Long, AuthorEntity> authorsById = new HashMap<>();
+        if (author != null && author.getId() != null)
+            authorRepository.findById(author.getId())
+                    .ifPresent(existingAuthor -> authorsById.put(existingAuthor.getId(), existingAuthor));
+        return resolveAuthor(author, authorsById, new IdentityHashMap<>());
     }
 
     @Override
+    @Transactional(readOnly = true)
     public List<BookEntity> findAll() {
         Iterable<BookEntity> books = bookRepository.findAll();
         return StreamSupport.stream(books.spliterator(), false).toList();
     }
 
     @Override
+    @Transactional(readOnly = true)
     public Page<BookEntity> findAll(Pageable pageable) {
         return bookRepository.findAll(pageable);
     }
 
     @Override
+    @Transactional(readOnly = true)
+    public Slice<BookEntity> findAll(Pageable pageable, CountMode count) {
+        return switch (count) {
+            case NONE -> bookRepository.findAllBy(pageable);
+            case ESTIMATE -> withEstimatedTotal(bookRepository.findAllBy(pageable), pageable);
+            case EXACT -> bookRepository.findAll(pageable);
+        };
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Slice<BookSummary> findSummaries(Pageable pageable, CountMode count) {
+        return switch (count) {
+            case NONE -> bookRepository.findSummariesBy(pageable);
+            case ESTIMATE -> withEstimatedTotal(bookRepository.findSummariesBy(pageable), pageable);
+            case EXACT -> bookRepository.findAllSummaries(pageable);
+        };
+    }
+
+    // only asked for full pages; an estimate below what the pages already show would end paging early
+    private <T> Page<T> withEstimatedTotal(Slice<T> slice, Pageable pageable) {
+        return PageableExecutionUtils.getPage(slice.getContent(), pageable, () -> {
+            long seen = pageable.getOffset() + slice.getNumberOfElements();
+            return slice.hasNext() ? Math.max(bookRepository.estimateCount(), seen + 1) : seen;
+        });
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Page<BookEntity> search(String query, Pageable pageable) {
+        return bookRepository.search(query, pageable);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<BookEntity> findAllAfter(String isbn, int limit) {
+        return isbn == null
+                ? bookRepository.findAllByOrderByIsbnAsc(Limit.of(limit))
+                : bookRepository.findByIsbnGreaterThanOrderByIsbnAsc(isbn, Limit.of(limit));
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<BookSummary> findByAuthorAfter(Long authorId, String isbn, int limit) {
+        return isbn == null
+                ? bookRepository.findSummariesByAuthorId(authorId, Limit.of(limit))
+                : bookRepository.findSummariesByAuthorIdAfter(authorId, isbn, Limit.of(limit));
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public void exportBooks(Consumer<BookEntity> action) {
+        try (Stream<BookEntity> books = bookRepository.streamAllWithAuthor()) {
+            books.forEach(book -> {
+                action.accept(book);
+                // keeps the persistence context from growing with the result set
+                entityManager.detach(book);
+            });
+        }
+    }
+
+    @Override
+    @Cacheable(cacheNames = CacheConfig.BOOKS, key = "#isbn", unless = "#result == null")
+    @Transactional(readOnly = true)
     public Optional<BookEntity> findOne(String isbn) {
         return bookRepository.findById(isbn);
     }
 
     @Override
+    @Transactional(readOnly = true)
+    public Optional<BookVersion> findVersion(String isbn) {
+        return bookRepository.findVersionByIsbn(isbn);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
     public boolean isExists(String isbn) {
         return bookRepository.existsById(isbn);
     }
 
     @Override
-    public BookEntity partialUpdate(String isbn, BookEntity bookEntity) {
-        bookEntity.setIsbn(isbn);
-        return bookRepository.findById(isbn).map(existingBook -> {
-            Optional.ofNullable(bookEntity.getTitle()).ifPresent(existingBook::setTitle);
-            Optional.ofNullable(bookEntity.getAuthorEntity()).ifPresent(existingBook::setAuthorEntity);
-            return bookRepository.save(existingBook);
-        }).orElseThrow(() -> new RuntimeException("The Book doesnt exist!"));
+    @Transactional
+    public Optional<BookEntity> partialUpdate(String isbn, BookEntity bookEntity, BookVersion expectedVersion) {
+        if (bookEntity.getAuthorEntity() != null)
+            return replaceAuthor(isbn, bookEntity, expectedVersion);
+
+        Optional<BookEntity> patchedBook = bookRepository.patch(isbn, bookEntity.getTitle(), expectedVersion);
+        if (patchedBook.isEmpty()) {
+            // only a miss on a conditional patch needs the second look to tell 412 from 404
+            if (expectedVersion != null && bookRepository.existsById(isbn))
+                throw new OptimisticLockingFailureException("Book " + isbn + " is not at version " + expectedVersion);
+            return Optional.empty();
+        }
+
+        eventPublisher.publishEvent(new BookChangedEvent(isbn));
+        return patchedBook;
+    }
+
+    // the embedded author is written through its entity, so this patch stays on the managed path
+    private Optional<BookEntity> replaceAuthor(String isbn, BookEntity bookEntity, BookVersion expectedVersion) {
+        Optional<BookEntity> existingBook = bookRepository.findById(isbn);
+        if (existingBook.isEmpty())
+            return Optional.empty();
+        checkVersion(isbn, existingBook, expectedVersion);
+
+        BookEntity managedBook = existingBook.get();
+        Optional.ofNullable(bookEntity.getTitle()).ifPresent(managedBook::setTitle);
+        managedBook.setAuthorEntity(resolveAuthor(bookEntity.getAuthorEntity()));
+        publishChanged(managedBook);
+        return existingBook;
+    }
+
+    // the flush only updates rows that are still at the versions loaded here
+    private void checkVersion(String isbn, Optional<BookEntity> book, BookVersion expectedVersion) {
+        if (expectedVersion != null && book.map(BookVersion::of).filter(expectedVersion::equals).isEmpty())
+            throw new OptimisticLockingFailureException("Book " + isbn + " is not at version " + expectedVersion);
+    }
+
+    @Override
+    @Transactional
+    public int delete(String isbn) {
+        int deleted = bookRepository.removeByIsbnIn(List.of(isbn));
+        eventPublisher.publishEvent(new BookChangedEvent(isbn));
+        return deleted;
     }
 
     @Override
-    public void delete(String isbn) {
-        bookRepository.deleteById(isbn);
+    @Transactional
+    public int deleteAll(List<String> isbns) {
+        List<String> distinctIsbns = isbns.stream().distinct().toList();
+        int deleted = 0;
+        for (int from = 0; from < distinctIsbns.size(); from += DELETE_CHUNK_SIZE) {
+            deleted += bookRepository.removeByIsbnIn(
+                    distinctIsbns.subList(from, Math.min(from + DELETE_CHUNK_SIZE, distinctIsbns.size())));
+        }
+        distinctIsbns.forEach(isbn -> eventPublisher.publishEvent(new BookChangedEvent(isbn)));
+        return deleted;
+    }
+
+    @Override
+    @Transactional
+    public int deleteByAuthor(Long authorId) {
+        int deleted = bookRepository.removeByAuthorId(authorId);
+        // evicts every cached book of the author without knowing their ISBNs
+        eventPublisher.publishEvent(new AuthorChangedEvent(authorId));
+        return deleted;
+    }
+
+    // book writes cascade to the embedded author, so its cached copies are stale as well
+    private void publishChanged(BookEntity book) {
+        eventPublisher.publishEvent(new BookChangedEvent(book.getIsbn()));
+        if (book.getAuthorEntity() != null && book.getAuthorEntity().getId() != null)
+            eventPublisher.publishEvent(new AuthorChangedEvent(book.getAuthorEntity().getId()));
     }
 }
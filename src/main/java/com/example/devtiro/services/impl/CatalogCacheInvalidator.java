@@ -0,0 +1,62 @@
+package com.example.devtiro.services.impl;
+
+import com.example.devtiro.config.CacheConfig;
+import com.example.devtiro.domain.entities.BookEntity;
+import com.example.devtiro.events.AuthorChangedEvent;
+import com.example.devtiro.events.BookChangedEvent;
+import com.example.devtiro.events.CatalogChanges;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.caffeine.CaffeineCache;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.Objects;
+
+@Component
+public class CatalogCacheInvalidator {
+
+    private final CacheManager cacheManager;
+    private final Counter bookInvalidations;
+    private final Counter authorInvalidations;
+
+    public CatalogCacheInvalidator(CacheManager cacheManager, MeterRegistry meterRegistry) {
+        this.cacheManager = cacheManager;
+        this.bookInvalidations = meterRegistry.counter("cache.invalidations", "cache", CacheConfig.BOOKS);
+        this.authorInvalidations = meterRegistry.counter("cache.invalidations", "cache", CacheConfig.AUTHORS);
+    }
+
+    @Order(CatalogChanges.ORDER - 1)
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onBookChanged(BookChangedEvent event) {
+        Cache books = cacheManager.getCache(CacheConfig.BOOKS);
+        if (books != null && books.evictIfPresent(event.isbn()))
+            bookInvalidations.increment();
+    }
+
+    @Order(CatalogChanges.ORDER - 1)
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onAuthorChanged(AuthorChangedEvent event) {
+        Cache authors = cacheManager.getCache(CacheConfig.AUTHORS);
+        if (authors != null && authors.evictIfPresent(event.id()))
+            authorInvalidations.increment();
+
+        // cached books embed their author, so they go stale with it
+        Cache books = cacheManager.getCache(CacheConfig.BOOKS);
+        if (books instanceof CaffeineCache caffeineBooks) {
+            caffeineBooks.getNativeCache().asMap().values().removeIf(book -> {
+                boolean stale = book instanceof BookEntity bookEntity
+                        && bookEntity.getAuthorEntity() != null
+                        && Objects.equals(bookEntity.getAuthorEntity().getId(), event.id());
+                if (stale)
+                    bookInvalidations.increment();
+                return stale;
+            });
+        } else if (books != null) {
+            books.clear();
+        }
+    }
+}
@@ -0,0 +1,21 @@
+-- keep in step with db/migration/postgresql; the tests validate the entities against this schema
+
+-- Hibernate's pooled optimizer hands out 50 ids per nextval, so the increment has to match its allocationSize
+CREATE SEQUENCE author_id_seq START WITH 1 INCREMENT BY 50;
+
+CREATE TABLE authors (
+    id      BIGINT       NOT NULL,
+    name    VARCHAR(255) NOT NULL,
+    age     INTEGER,
+    version BIGINT       DEFAULT 0 NOT NULL,
+    CONSTRAINT authors_pkey PRIMARY KEY (id)
+);
+
+CREATE TABLE books (
+    isbn      VARCHAR(255) NOT NULL,
+    title     VARCHAR(255),
+    author_id BIGINT,
+    version   BIGINT       DEFAULT 0 NOT NULL,
+    CONSTRAINT books_pkey PRIMARY KEY (isbn),
+    CONSTRAINT books_author_id_fkey FOREIGN KEY (author_id) REFERENCES authors (id)
+);
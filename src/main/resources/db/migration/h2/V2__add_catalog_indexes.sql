@@ -0,0 +1,3 @@
+CREATE INDEX IF NOT EXISTS books_author_id_idx ON books (author_id);
+CREATE INDEX IF NOT EXISTS authors_name_idx ON authors (name);
+CREATE INDEX IF NOT EXISTS authors_age_idx ON authors (age);
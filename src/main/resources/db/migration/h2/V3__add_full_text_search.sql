@@ -0,0 +1 @@
+-- nothing to do: without tsvector, GET /books/search runs on an in-memory index (InvertedBookIndex)
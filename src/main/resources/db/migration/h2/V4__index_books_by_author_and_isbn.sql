@@ -0,0 +1,4 @@
+-- GET /authors/{id}/books pages by isbn within one author; the wider index still serves the
+-- author_id lookups of books_author_id_idx
+CREATE INDEX IF NOT EXISTS books_author_id_isbn_idx ON books (author_id, isbn);
+DROP INDEX IF EXISTS books_author_id_idx;
@@ -0,0 +1,8 @@
+-- databases baselined from ddl-auto=update may have been created with another increment
+ALTER SEQUENCE author_id_seq INCREMENT BY 50;
+
+-- the author join, DELETE /books?authorId= and author deletes all look books up by author
+CREATE INDEX IF NOT EXISTS books_author_id_idx ON books (author_id);
+-- AuthorRepository.findByName and the age queries
+CREATE INDEX IF NOT EXISTS authors_name_idx ON authors (name);
+CREATE INDEX IF NOT EXISTS authors_age_idx ON authors (age);
@@ -0,0 +1,8 @@
+-- GET /books/search: titles are stemmed and weigh more than author names
+ALTER TABLE books ADD COLUMN IF NOT EXISTS search_vector tsvector
+    GENERATED ALWAYS AS (setweight(to_tsvector('english', coalesce(title, '')), 'A')) STORED;
+CREATE INDEX IF NOT EXISTS books_search_vector_idx ON books USING GIN (search_vector);
+
+ALTER TABLE authors ADD COLUMN IF NOT EXISTS search_vector tsvector
+    GENERATED ALWAYS AS (setweight(to_tsvector('simple', coalesce(name, '')), 'B')) STORED;
+CREATE INDEX IF NOT EXISTS authors_search_vector_idx ON authors USING GIN (search_vector);
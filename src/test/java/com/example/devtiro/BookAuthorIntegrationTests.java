@@ -15,6 +15,8 @@ import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
 import org.springframework.test.web.servlet.result.MockMvcResultMatchers;
 
+import java.util.List;
+
 @SpringBootTest
 @ExtendWith(SpringExtension.class)
 @DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD)
@@ -43,7 +45,50 @@ public class BookAuthorIntegrationTests {
         );
 
         mockMvc.perform(MockMvcRequestBuilders.get("/authors"))
-                .andExpect(MockMvcResultMatchers.jsonPath("$[0].name").value(authorDto.getName()))
-                .andExpect(MockMvcResultMatchers.jsonPath("$[0].age").value(authorDto.getAge()));
+                .andExpect(MockMvcResultMatchers.jsonPath("$.content[0].name").value(authorDto.getName()))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.content[0].age").value(authorDto.getAge()));
+    }
+
+    @Test
+    public void shouldResolveSharedAuthorOnceWhenBooksAreCreatedInBatch() throws Exception {
+        AuthorDto authorDto = TestDataUtils.createTestAuthorDtoA();
+        authorDto.setId(null);
+        String savedAuthor = mockMvc.perform(
+                MockMvcRequestBuilders.post("/authors")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(authorDto))
+        ).andReturn().getResponse().getContentAsString();
+        authorDto.setId(objectMapper.readValue(savedAuthor, AuthorDto.class).getId());
+        List<BookDto> books = List.of(
+                TestDataUtils.createTestBookDtoA(authorDto),
+                TestDataUtils.createTestBookDtoB(authorDto));
+
+        mockMvc.perform(
+                MockMvcRequestBuilders.put("/books")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(books))
+        );
+
+        mockMvc.perform(MockMvcRequestBuilders.get("/authors"))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.content.length()").value(1))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.content[0].name").value(authorDto.getName()));
+    }
+
+    @Test
+    public void shouldNotMergeAuthorsWithoutIdThatShareNameAndAge() throws Exception {
+        AuthorDto authorDto = TestDataUtils.createTestAuthorDtoA();
+        authorDto.setId(null);
+        List<BookDto> books = List.of(
+                TestDataUtils.createTestBookDtoA(authorDto),
+                TestDataUtils.createTestBookDtoB(authorDto));
+
+        mockMvc.perform(
+                MockMvcRequestBuilders.put("/books")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(books))
+        );
+
+        mockMvc.perform(MockMvcRequestBuilders.get("/authors"))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.content.length()").value(2));
     }
 }
@@ -0,0 +1,86 @@
+package com.example.devtiro;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import net.ttddyy.dsproxy.QueryCount;
+import net.ttddyy.dsproxy.listener.SingleQueryCountHolder;
+import net.ttddyy.dsproxy.support.ProxyDataSource;
+import net.ttddyy.dsproxy.support.ProxyDataSourceBuilder;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.test.autoconfigure.web.servlet.MockMvcBuilderCustomizer;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.test.web.servlet.ResultMatcher;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.util.function.ToLongFunction;
+
+/**
+ * Counts the statements each MockMvc request sends to the database so endpoint tests can bound them,
+ * e.g. {@code .andExpect(QueryCounting.selects(1))}. Import it into a {@code @SpringBootTest}; the count
+ * restarts with every request (not with its async dispatch) and includes work done on other threads.
+ */
+@TestConfiguration(proxyBeanMethods = false)
+public class QueryCounting {
+
+    private static final SingleQueryCountHolder COUNTS = new SingleQueryCountHolder();
+
+    @Bean
+    public static BeanPostProcessor queryCountingDataSourcePostProcessor() {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (!(bean instanceof DataSource dataSource) || bean instanceof ProxyDataSource)
+                    return bean;
+                return ProxyDataSourceBuilder.create(dataSource).name(beanName).countQuery(COUNTS).build();
+            }
+        };
+    }
+
+    @Bean
+    public MockMvcBuilderCustomizer queryCountReset() {
+        return builder -> builder.addFilters(new OncePerRequestFilter() {
+            @Override
+            protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+                    throws ServletException, IOException {
+                COUNTS.clear();
+                chain.doFilter(request, response);
+            }
+        });
+    }
+
+    public static ResultMatcher selects(long max) {
+        return atMost("SELECT statements", QueryCount::getSelect, max);
+    }
+
+    public static ResultMatcher inserts(long max) {
+        return atMost("INSERT statements", QueryCount::getInsert, max);
+    }
+
+    public static ResultMatcher updates(long max) {
+        return atMost("UPDATE statements", QueryCount::getUpdate, max);
+    }
+
+    public static ResultMatcher deletes(long max) {
+        return atMost("DELETE statements", QueryCount::getDelete, max);
+    }
+
+    // every statement, including MERGE and other kinds datasource-proxy does not classify
+    public static ResultMatcher statements(long max) {
+        return atMost("statements", QueryCount::getTotal, max);
+    }
+
+    private static ResultMatcher atMost(String statements, ToLongFunction<QueryCount> count, long max) {
+        return result -> {
+            long actual = COUNTS.getQueryCountMap().values().stream().mapToLong(count).sum();
+            if (actual > max)
+                throw new AssertionError("Expected at most " + max + " " + statements + " for "
+                        + result.getRequest().getMethod() + " " + result.getRequest().getRequestURI()
+                        + " but " + actual + " were executed");
+        };
+    }
+}
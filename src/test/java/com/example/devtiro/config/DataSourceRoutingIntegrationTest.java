@@ -0,0 +1,108 @@
+package com.example.devtiro.config;
+
+import jakarta.servlet.http.Cookie;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationContext;
+import org.springframework.http.MediaType;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+import org.springframework.test.web.servlet.result.MockMvcResultMatchers;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:primary;MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE;DEFAULT_NULL_ORDERING=HIGH",
+        "devtiro.datasource.replica-urls=" + DataSourceRoutingIntegrationTest.REPLICA_URL,
+        "spring.cache.type=none",
+        "spring.jpa.properties.hibernate.cache.use_second_level_cache=false",
+        "spring.jpa.properties.hibernate.cache.use_query_cache=false"
+})
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD)
+@ExtendWith(SpringExtension.class)
+@AutoConfigureMockMvc
+public class DataSourceRoutingIntegrationTest {
+
+    static final String REPLICA_URL =
+            "jdbc:h2:mem:replica;MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE;DEFAULT_NULL_ORDERING=HIGH;DB_CLOSE_DELAY=-1";
+
+    private final MockMvc mockMvc;
+    private final DataSource dataSource;
+    private final ApplicationContext applicationContext;
+
+    @Autowired
+    public DataSourceRoutingIntegrationTest(MockMvc mockMvc, DataSource dataSource, ApplicationContext applicationContext) {
+        this.mockMvc = mockMvc;
+        this.dataSource = dataSource;
+        this.applicationContext = applicationContext;
+    }
+
+    // the replica gets the primary's schema but none of its rows, standing in for replication lag
+    @BeforeEach
+    public void copySchemaToReplica() throws Exception {
+        List<String> ddl = new ArrayList<>();
+        try (Connection primary = dataSource.getConnection();
+             Statement statement = primary.createStatement();
+             ResultSet script = statement.executeQuery("SCRIPT NODATA")) {
+            while (script.next())
+                ddl.add(script.getString(1));
+        }
+
+        try (Connection replica = DriverManager.getConnection(REPLICA_URL, "sa", "password");
+             Statement statement = replica.createStatement()) {
+            statement.execute("DROP ALL OBJECTS");
+            for (String sql : ddl) {
+                if (!sql.startsWith("CREATE USER"))
+                    statement.execute(sql);
+            }
+            statement.execute("INSERT INTO authors (id, name, age, version) VALUES (1000, 'Replica Author', 40, 0)");
+        }
+    }
+
+    @Test
+    public void responseCacheShouldStayOffWithReplicas() {
+        assertThat(applicationContext.getBeanProvider(EncodedResponseCacheFilter.class).getIfAvailable()).isNull();
+    }
+
+    @Test
+    public void readsShouldGoToTheReplica() throws Exception {
+        mockMvc.perform(MockMvcRequestBuilders.get("/authors/1000"))
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.jsonPath("$.name").value("Replica Author"));
+    }
+
+    @Test
+    public void writesShouldGoToThePrimaryAndPinTheClientToIt() throws Exception {
+        MvcResult created = mockMvc.perform(MockMvcRequestBuilders.post("/authors")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"name\":\"Primary Author\",\"age\":50}"))
+                .andExpect(MockMvcResultMatchers.status().isCreated())
+                .andExpect(MockMvcResultMatchers.cookie().exists(ReadYourWritesFilter.COOKIE_NAME))
+                .andReturn();
+        Cookie pin = created.getResponse().getCookie(ReadYourWritesFilter.COOKIE_NAME);
+        String id = created.getResponse().getContentAsString().replaceAll(".*\"id\":(\\d+).*", "$1");
+
+        mockMvc.perform(MockMvcRequestBuilders.get("/authors/" + id))
+                .andExpect(MockMvcResultMatchers.status().isNotFound());
+
+        mockMvc.perform(MockMvcRequestBuilders.get("/authors/" + id).cookie(pin))
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.jsonPath("$.name").value("Primary Author"));
+        assertThat(pin.getMaxAge()).isPositive();
+    }
+}
@@ -0,0 +1,96 @@
+package com.example.devtiro.config;
+
+import com.example.devtiro.TestDataUtils;
+import com.example.devtiro.services.BookService;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+import org.springframework.test.web.servlet.result.MockMvcResultMatchers;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD)
+@ExtendWith(SpringExtension.class)
+@AutoConfigureMockMvc
+public class MetricsConfigIntegrationTest {
+
+    private final MockMvc mockMvc;
+    private final BookService bookService;
+    private final MeterRegistry meterRegistry;
+
+    @Autowired
+    public MetricsConfigIntegrationTest(MockMvc mockMvc, BookService bookService, MeterRegistry meterRegistry) {
+        this.mockMvc = mockMvc;
+        this.bookService = bookService;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Test
+    public void getBookShouldBeTimedPerLayerAndTaggedWithTheRouteTemplate() throws Exception {
+        bookService.createUpdateBook("978-1", TestDataUtils.createTestBookA(null));
+        bookService.createUpdateBook("978-2", TestDataUtils.createTestBookB(null));
+
+        mockMvc.perform(MockMvcRequestBuilders.get("/books/978-1"))
+                .andExpect(MockMvcResultMatchers.status().isOk());
+        mockMvc.perform(MockMvcRequestBuilders.get("/books/978-2"))
+                .andExpect(MockMvcResultMatchers.status().isOk());
+
+        Timer request = meterRegistry.find("http.server.requests").tag("uri", "/books/{isbn}").timer();
+        assertThat(request).isNotNull();
+        assertThat(request.count()).isEqualTo(2);
+        assertThat(request.takeSnapshot().percentileValues()).hasSize(3);
+        assertThat(meterRegistry.find("http.server.requests").tag("uri", "/books/978-1").timer()).isNull();
+
+        assertThat(meterRegistry.find("devtiro.service").tag("method", "findOne").timer()).isNotNull();
+        assertThat(meterRegistry.find(MappingTimer.METER_NAME).tag("uri", "/books/{isbn}")
+                .timer().count()).isEqualTo(2);
+        assertThat(meterRegistry.find(TimedJsonHttpMessageConverter.METER_NAME).tag("uri", "/books/{isbn}")
+                .timer().count()).isEqualTo(2);
+        assertThat(meterRegistry.find(SqlStatementCounter.METER_NAME).tag("type", "select")
+                .counter().count()).isPositive();
+        assertThat(meterRegistry.find("hibernate.flushes").functionCounter()).isNotNull();
+    }
+
+    @Test
+    public void listBooksShouldTimeMappingOncePerPage() throws Exception {
+        bookService.createUpdateBook("978-1", TestDataUtils.createTestBookA(null));
+        bookService.createUpdateBook("978-2", TestDataUtils.createTestBookB(null));
+
+        mockMvc.perform(MockMvcRequestBuilders.get("/books"))
+                .andExpect(MockMvcResultMatchers.status().isOk());
+
+        assertThat(meterRegistry.find(MappingTimer.METER_NAME).tag("uri", "/books").timer().count()).isEqualTo(1);
+    }
+
+    @Test
+    public void putBookShouldTimeMappingBothWaysUnderTheRouteTemplate() throws Exception {
+        mockMvc.perform(MockMvcRequestBuilders.put("/books/978-1")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"title\":\"Title\"}"))
+                .andExpect(MockMvcResultMatchers.status().isCreated());
+
+        assertThat(meterRegistry.find(MappingTimer.METER_NAME).tag("uri", "/books/{isbn}").timer().count()).isEqualTo(2);
+    }
+
+    @Test
+    public void metricsShouldBeServedByTheActuator() throws Exception {
+        mockMvc.perform(MockMvcRequestBuilders.get("/books"))
+                .andExpect(MockMvcResultMatchers.status().isOk());
+
+        mockMvc.perform(MockMvcRequestBuilders.get("/actuator/metrics/devtiro.sql.statements"))
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.jsonPath("$.availableTags[0].tag").value("type"));
+        mockMvc.perform(MockMvcRequestBuilders.get("/actuator/metrics/hibernate.second.level.cache.requests"))
+                .andExpect(MockMvcResultMatchers.status().isOk());
+    }
+}
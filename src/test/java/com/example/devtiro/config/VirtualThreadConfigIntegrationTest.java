@@ -0,0 +1,67 @@
+package com.example.devtiro.config;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLTransientConnectionException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@SpringBootTest(properties = {
+        "spring.threads.virtual.enabled=true",
+        "spring.datasource.hikari.maximum-pool-size=2",
+        "spring.datasource.hikari.connection-timeout=2000"
+})
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD)
+@ExtendWith(SpringExtension.class)
+public class VirtualThreadConfigIntegrationTest {
+
+    private final DataSource dataSource;
+
+    @Autowired
+    public VirtualThreadConfigIntegrationTest(DataSource dataSource) {
+        this.dataSource = dataSource;
+    }
+
+    @Test
+    public void extraVirtualThreadsShouldQueueForAFreedConnection() throws Exception {
+        assertThat(dataSource).isInstanceOf(ConnectionLimitingDataSource.class);
+
+        List<Future<Boolean>> results = new ArrayList<>();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            // 20 holders of 50 ms each on 2 connections, well within the 2 s connection timeout
+            for (int i = 0; i < 20; i++) {
+                results.add(executor.submit(() -> {
+                    try (Connection connection = dataSource.getConnection()) {
+                        Thread.sleep(50);
+                        return connection.isValid(1);
+                    }
+                }));
+            }
+        }
+
+        for (Future<Boolean> result : results)
+            assertThat(result.get()).isTrue();
+        assertThat(((ConnectionLimitingDataSource) dataSource).getAvailablePermits()).isEqualTo(2);
+    }
+
+    @Test
+    public void waitingLongerThanTheConnectionTimeoutShouldFail() throws Exception {
+        try (Connection first = dataSource.getConnection(); Connection second = dataSource.getConnection()) {
+            assertThatThrownBy(dataSource::getConnection).isInstanceOf(SQLTransientConnectionException.class);
+        }
+        assertThat(((ConnectionLimitingDataSource) dataSource).getAvailablePermits()).isEqualTo(2);
+    }
+}
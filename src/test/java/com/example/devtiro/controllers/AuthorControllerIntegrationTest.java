@@ -1,15 +1,23 @@
 package com.example.devtiro.controllers;
 
+import com.example.devtiro.QueryCounting;
 import com.example.devtiro.TestDataUtils;
 import com.example.devtiro.domain.dto.AuthorDto;
 import com.example.devtiro.domain.entities.AuthorEntity;
 import com.example.devtiro.services.AuthorService;
+import com.example.devtiro.services.BookService;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.smile.databind.SmileMapper;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.test.annotation.DirtiesContext;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
@@ -17,21 +25,31 @@ import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
 import org.springframework.test.web.servlet.result.MockMvcResultMatchers;
 
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
 @SpringBootTest
 @DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD)
 @ExtendWith(SpringExtension.class)
 @AutoConfigureMockMvc
+@Import(QueryCounting.class)
 public class AuthorControllerIntegrationTest {
 
     private final MockMvc mockMvc;
     private final ObjectMapper objectMapper;
     private final AuthorService authorService;
+    private final BookService bookService;
+    private final Statistics statistics;
 
     @Autowired
-    public AuthorControllerIntegrationTest(MockMvc mockMvc, AuthorService authorService) {
+    public AuthorControllerIntegrationTest(MockMvc mockMvc, AuthorService authorService, BookService bookService,
+                                           EntityManagerFactory entityManagerFactory) {
         this.mockMvc = mockMvc;
         this.objectMapper = new ObjectMapper();
         this.authorService = authorService;
+        this.bookService = bookService;
+        this.statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
     }
 
     @Test
@@ -46,6 +64,10 @@ public class AuthorControllerIntegrationTest {
                         .content(authorJson)
         ).andExpect(
                 MockMvcResultMatchers.status().isCreated()
+        ).andExpect(
+                QueryCounting.selects(1)
+        ).andExpect(
+                QueryCounting.inserts(1)
         );
     }
 
@@ -86,15 +108,96 @@ public class AuthorControllerIntegrationTest {
         mockMvc.perform(
                 MockMvcRequestBuilders.get("/authors")
                 ).andExpect(
-                        MockMvcResultMatchers.jsonPath("$.length()").value(1)
+                        MockMvcResultMatchers.jsonPath("$.content.length()").value(1)
                 )
                 .andExpect(
-                        MockMvcResultMatchers.jsonPath("$[0].id").isNumber()
+                        MockMvcResultMatchers.jsonPath("$.content[0].id").isNumber()
                 ).andExpect(
-                        MockMvcResultMatchers.jsonPath("$[0].name").value(testAuthorA.getName())
+                        MockMvcResultMatchers.jsonPath("$.content[0].name").value(testAuthorA.getName())
                 )
                 .andExpect(
-                        MockMvcResultMatchers.jsonPath("$[0].age").value(testAuthorA.getAge())
+                        MockMvcResultMatchers.jsonPath("$.content[0].age").value(testAuthorA.getAge())
+                ).andExpect(
+                        QueryCounting.statements(1)
+                );
+    }
+
+    @Test
+    public void testThatListAuthorsReturnsRequestedPage() throws Exception {
+        authorService.save(TestDataUtils.createTestAuthorA());
+        authorService.save(TestDataUtils.createTestAuthorB());
+        authorService.save(TestDataUtils.createTestAuthorC());
+
+        mockMvc.perform(
+                MockMvcRequestBuilders.get("/authors?page=1&size=2")
+                ).andExpect(
+                        MockMvcResultMatchers.jsonPath("$.content.length()").value(1)
+                ).andExpect(
+                        MockMvcResultMatchers.jsonPath("$.content[0].name").value("Anna Adams")
+                ).andExpect(
+                        QueryCounting.statements(1)
+                );
+    }
+
+    @Test
+    public void testThatListAuthorsTellsWhetherMorePagesFollow() throws Exception {
+        authorService.save(TestDataUtils.createTestAuthorA());
+        authorService.save(TestDataUtils.createTestAuthorB());
+        authorService.save(TestDataUtils.createTestAuthorC());
+
+        mockMvc.perform(
+                MockMvcRequestBuilders.get("/authors?size=2")
+                ).andExpect(
+                        MockMvcResultMatchers.jsonPath("$.content.length()").value(2)
+                ).andExpect(
+                        MockMvcResultMatchers.jsonPath("$.last").value(false)
+                );
+
+        mockMvc.perform(
+                MockMvcRequestBuilders.get("/authors?page=1&size=2")
+                ).andExpect(
+                        MockMvcResultMatchers.jsonPath("$.last").value(true)
+                );
+    }
+
+    @Test
+    public void testThatListAuthorsWritesOnlyRequestedFields() throws Exception {
+        authorService.save(TestDataUtils.createTestAuthorA());
+
+        mockMvc.perform(
+                MockMvcRequestBuilders.get("/authors?fields=name")
+                ).andExpect(
+                        MockMvcResultMatchers.jsonPath("$.content[0].length()").value(1)
+                ).andExpect(
+                        MockMvcResultMatchers.jsonPath("$.content[0].name").isString()
+                );
+    }
+
+    @Test
+    public void testThatListAuthorsAfterFollowsCursor() throws Exception {
+        authorService.save(TestDataUtils.createTestAuthorA());
+        authorService.save(TestDataUtils.createTestAuthorB());
+        authorService.save(TestDataUtils.createTestAuthorC());
+
+        String firstPage = mockMvc.perform(
+                MockMvcRequestBuilders.get("/authors?after=&size=2")
+                ).andExpect(
+                        MockMvcResultMatchers.jsonPath("$.content.length()").value(2)
+                ).andExpect(
+                        MockMvcResultMatchers.jsonPath("$.next").isString()
+                ).andReturn().getResponse().getContentAsString();
+        String next = objectMapper.readTree(firstPage).get("next").asText();
+
+        mockMvc.perform(
+                MockMvcRequestBuilders.get("/authors").param("after", next).param("size", "2")
+                ).andExpect(
+                        MockMvcResultMatchers.jsonPath("$.content.length()").value(1)
+                ).andExpect(
+                        MockMvcResultMatchers.jsonPath("$.content[0].name").value("Anna Adams")
+                ).andExpect(
+                        MockMvcResultMatchers.jsonPath("$.next").doesNotExist()
+                ).andExpect(
+                        QueryCounting.statements(1)
                 );
     }
 
@@ -134,9 +237,73 @@ public class AuthorControllerIntegrationTest {
                 )
                 .andExpect(
                         MockMvcResultMatchers.jsonPath("$.age").value(testAuthorA.getAge())
+                ).andExpect(
+                        QueryCounting.statements(1)
+                );
+    }
+
+    @Test
+    public void listAuthorBooksFollowsCursorWithoutTheAuthor() throws Exception {
+        AuthorEntity author = authorService.save(TestDataUtils.createTestAuthorA());
+        AuthorEntity otherAuthor = authorService.save(TestDataUtils.createTestAuthorB());
+        bookService.createUpdateBook("TEST-123-123", TestDataUtils.createTestBookA(author));
+        bookService.createUpdateBook("TEST-111-111", TestDataUtils.createTestBookB(author));
+        bookService.createUpdateBook("TEST-666-555", TestDataUtils.createTestBookC(otherAuthor));
+
+        String firstPage = mockMvc.perform(
+                MockMvcRequestBuilders.get("/authors/" + author.getId() + "/books?size=1")
+                ).andExpect(
+                        MockMvcResultMatchers.status().isOk()
+                ).andExpect(
+                        MockMvcResultMatchers.jsonPath("$.content.length()").value(1)
+                ).andExpect(
+                        MockMvcResultMatchers.jsonPath("$.content[0].isbn").value("TEST-111-111")
+                ).andExpect(
+                        MockMvcResultMatchers.jsonPath("$.content[0].author").doesNotExist()
+                ).andExpect(
+                        QueryCounting.statements(1)
+                ).andReturn().getResponse().getContentAsString();
+        String next = objectMapper.readTree(firstPage).get("next").asText();
+
+        mockMvc.perform(
+                MockMvcRequestBuilders.get("/authors/" + author.getId() + "/books").param("after", next).param("size", "1")
+                ).andExpect(
+                        MockMvcResultMatchers.jsonPath("$.content.length()").value(1)
+                ).andExpect(
+                        MockMvcResultMatchers.jsonPath("$.content[0].isbn").value("TEST-123-123")
+                ).andExpect(
+                        MockMvcResultMatchers.jsonPath("$.next").doesNotExist()
+                ).andExpect(
+                        QueryCounting.statements(1)
                 );
     }
 
+    @Test
+    public void listAuthorBooksReturns404WhenAuthorDoesntExist() throws Exception {
+        mockMvc.perform(
+                MockMvcRequestBuilders.get("/authors/1/books")
+        ).andExpect(
+                MockMvcResultMatchers.status().isNotFound()
+        );
+    }
+
+    @Test
+    public void testThatGetAuthorNegotiatesSmile() throws Exception {
+        AuthorEntity testAuthorA = TestDataUtils.createTestAuthorA();
+        authorService.save(testAuthorA);
+        MediaType smile = MediaType.valueOf("application/x-jackson-smile");
+
+        byte[] body = mockMvc.perform(
+                MockMvcRequestBuilders.get("/authors/" + testAuthorA.getId()).accept(smile)
+                ).andExpect(
+                        MockMvcResultMatchers.content().contentType(smile)
+                ).andReturn().getResponse().getContentAsByteArray();
+
+        AuthorDto author = new SmileMapper().readValue(body, AuthorDto.class);
+        assertThat(author.getName()).isEqualTo(testAuthorA.getName());
+        assertThat(author.getAge()).isEqualTo(testAuthorA.getAge());
+    }
+
     @Test
     public void fullUpdateAuthorReturns404WhenAuthorDoesntExists() throws Exception {
         AuthorDto testAuthorDto = TestDataUtils.createTestAuthorDtoA();
@@ -167,7 +334,9 @@ public class AuthorControllerIntegrationTest {
                 .andExpect(MockMvcResultMatchers.status().isOk())
                 .andExpect(MockMvcResultMatchers.jsonPath("$.id").value(savedAuthor.getId()))
                 .andExpect(MockMvcResultMatchers.jsonPath("$.name").value(testAuthorDtoB.getName()))
-                .andExpect(MockMvcResultMatchers.jsonPath("$.age").value(testAuthorDtoB.getAge()));
+                .andExpect(MockMvcResultMatchers.jsonPath("$.age").value(testAuthorDtoB.getAge()))
+                .andExpect(QueryCounting.selects(1))
+                .andExpect(QueryCounting.updates(1));
     }
 
     @Test
@@ -212,7 +381,100 @@ public class AuthorControllerIntegrationTest {
                 MockMvcRequestBuilders.patch("/authors/" + authorEntity.getId())
                         .contentType(MediaType.APPLICATION_JSON)
                         .content(authorJson)
-        ).andExpect(MockMvcResultMatchers.jsonPath("$.name").value("UPDATED"));
+        ).andExpect(MockMvcResultMatchers.jsonPath("$.name").value("UPDATED"))
+                .andExpect(QueryCounting.statements(1));
+    }
+
+    @Test
+    public void getAuthorShouldReturn304WhenETagMatches() throws Exception {
+        AuthorEntity author = authorService.save(TestDataUtils.createTestAuthorA());
+
+        String eTag = mockMvc.perform(MockMvcRequestBuilders.get("/authors/" + author.getId()))
+                .andExpect(MockMvcResultMatchers.header().string(HttpHeaders.ETAG, "\"0\""))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        mockMvc.perform(
+                MockMvcRequestBuilders.get("/authors/" + author.getId())
+                        .header(HttpHeaders.IF_NONE_MATCH, eTag)
+        ).andExpect(
+                MockMvcResultMatchers.status().isNotModified()
+        ).andExpect(
+                MockMvcResultMatchers.content().string("")
+        );
+    }
+
+    @Test
+    public void updateAuthorShouldReturn412WhenIfMatchIsStale() throws Exception {
+        AuthorEntity author = authorService.save(TestDataUtils.createTestAuthorA());
+        String authorJson = "{\"name\": \"UPDATED\", \"age\": 81}";
+
+        mockMvc.perform(
+                MockMvcRequestBuilders.put("/authors/" + author.getId())
+                        .header(HttpHeaders.IF_MATCH, "\"0\"")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(authorJson)
+        ).andExpect(
+                MockMvcResultMatchers.status().isOk()
+        ).andExpect(
+                MockMvcResultMatchers.header().string(HttpHeaders.ETAG, "\"1\"")
+        );
+
+        mockMvc.perform(
+                MockMvcRequestBuilders.patch("/authors/" + author.getId())
+                        .header(HttpHeaders.IF_MATCH, "\"0\"")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"name\": \"LOST UPDATE\"}")
+        ).andExpect(
+                MockMvcResultMatchers.status().isPreconditionFailed()
+        );
+        mockMvc.perform(MockMvcRequestBuilders.get("/authors/" + author.getId()))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.name").value("UPDATED"));
+    }
+
+    @Test
+    public void updateAuthorWithoutIfMatchShouldKeepLastWriterWins() throws Exception {
+        AuthorEntity author = authorService.save(TestDataUtils.createTestAuthorA());
+
+        for (String name : List.of("FIRST", "SECOND")) {
+            mockMvc.perform(
+                    MockMvcRequestBuilders.put("/authors/" + author.getId())
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content("{\"name\": \"" + name + "\", \"age\": 80}")
+            ).andExpect(MockMvcResultMatchers.status().isOk());
+        }
+
+        mockMvc.perform(MockMvcRequestBuilders.get("/authors/" + author.getId()))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.name").value("SECOND"))
+                .andExpect(MockMvcResultMatchers.header().string(HttpHeaders.ETAG, "\"2\""));
+    }
+
+    @Test
+    public void patchAuthorShouldUpdateInOneStatement() throws Exception {
+        AuthorEntity author = authorService.save(TestDataUtils.createTestAuthorA());
+        statistics.clear();
+
+        mockMvc.perform(
+                MockMvcRequestBuilders.patch("/authors/" + author.getId())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"age\": 81}")
+        ).andExpect(
+                MockMvcResultMatchers.jsonPath("$.name").value(author.getName())
+        ).andExpect(
+                MockMvcResultMatchers.jsonPath("$.age").value(81)
+        );
+
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+    }
+
+    @Test
+    public void patchAuthorShouldReturn404WhenAuthorDoesntExist() throws Exception {
+        mockMvc.perform(
+                MockMvcRequestBuilders.patch("/authors/99")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"name\": \"UPDATED\"}")
+        ).andExpect(
+                MockMvcResultMatchers.status().isNotFound()
+        );
     }
 
     @Test
@@ -227,7 +489,8 @@ public class AuthorControllerIntegrationTest {
         AuthorEntity author = TestDataUtils.createTestAuthorA();
         authorService.save(author);
 
-        mockMvc.perform(MockMvcRequestBuilders.delete("/authors/" + author.getId()));
+        mockMvc.perform(MockMvcRequestBuilders.delete("/authors/" + author.getId()))
+                .andExpect(QueryCounting.statements(1));
         mockMvc.perform(MockMvcRequestBuilders.get("/authors/" + author.getId()))
                 .andExpect(MockMvcResultMatchers.status().isNotFound());
     }
@@ -1,5 +1,6 @@
 package com.example.devtiro.controllers;
 
+import com.example.devtiro.QueryCounting;
 import com.example.devtiro.TestDataUtils;
 import com.example.devtiro.domain.dto.AuthorDto;
 import com.example.devtiro.domain.dto.BookDto;
@@ -8,35 +9,52 @@ import com.example.devtiro.domain.entities.BookEntity;
 import com.example.devtiro.mappers.Mapper;
 import com.example.devtiro.services.BookService;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.test.annotation.DirtiesContext;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
 import org.springframework.test.web.servlet.result.MockMvcResultMatchers;
 
+import java.time.Duration;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
 @SpringBootTest
 @ExtendWith(SpringExtension.class)
 @DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD)
 @AutoConfigureMockMvc
+@Import(QueryCounting.class)
 public class BookControllerIntegrationTest {
 
     private MockMvc mockMvc;
     private ObjectMapper objectMapper;
     private Mapper<AuthorEntity, AuthorDto> authorMapper;
     private BookService bookService;
+    private Statistics statistics;
 
     @Autowired
-    public BookControllerIntegrationTest(MockMvc mockMvc, Mapper<AuthorEntity, AuthorDto> authorMapper, BookService bookService) {
+    public BookControllerIntegrationTest(MockMvc mockMvc, Mapper<AuthorEntity, AuthorDto> authorMapper, BookService bookService,
+                                         EntityManagerFactory entityManagerFactory) {
         this.mockMvc = mockMvc;
         this.objectMapper = new ObjectMapper();
         this.authorMapper = authorMapper;
         this.bookService = bookService;
+        this.statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
     }
 
     @Test
@@ -68,7 +86,8 @@ public class BookControllerIntegrationTest {
                         .content(testBookJson))
                 .andExpect(
                         MockMvcResultMatchers.status().isOk()
-                );
+                )
+                .andExpect(QueryCounting.statements(1));
     }
 
     @Test
@@ -85,7 +104,8 @@ public class BookControllerIntegrationTest {
                         MockMvcResultMatchers.jsonPath("$.isbn").value(isbn)
                 ).andExpect(
                         MockMvcResultMatchers.jsonPath("$.title").value(testBookDtoA.getTitle())
-                );
+                )
+                .andExpect(QueryCounting.statements(4));
     }
 
     @Test
@@ -107,12 +127,107 @@ public class BookControllerIntegrationTest {
                 .andExpect(MockMvcResultMatchers.jsonPath("$[0].title").value(testBookDtoB.getTitle()));
     }
 
+    @Test
+    public void createUpdateBookShouldUpsertInOneStatement() throws Exception {
+        String isbn = "11111";
+        String testBookJson = objectMapper.writeValueAsString(TestDataUtils.createTestBookDtoA(null));
+        statistics.clear();
+
+        mockMvc.perform(MockMvcRequestBuilders.put("/books/" + isbn)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(testBookJson))
+                .andExpect(MockMvcResultMatchers.status().isCreated())
+                .andExpect(MockMvcResultMatchers.header().string(HttpHeaders.ETAG, "\"0\""));
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+
+        BookDto testBookDtoB = TestDataUtils.createTestBookDtoB(null);
+        statistics.clear();
+
+        mockMvc.perform(MockMvcRequestBuilders.put("/books/" + isbn)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(testBookDtoB)))
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.header().string(HttpHeaders.ETAG, "\"1\""));
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+
+        mockMvc.perform(MockMvcRequestBuilders.get("/books/" + isbn))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.title").value(testBookDtoB.getTitle()));
+    }
+
+    @Test
+    public void createUpdateBooksShouldReportCreatedAndUpdatedBooks() throws Exception {
+        BookEntity existingBook = TestDataUtils.createTestBookA(TestDataUtils.createTestAuthorB());
+        bookService.createUpdateBook(existingBook.getIsbn(), existingBook);
+
+        AuthorDto authorDto = TestDataUtils.createTestAuthorDtoB();
+        authorDto.setId(existingBook.getAuthorEntity().getId());
+        List<BookDto> books = List.of(
+                TestDataUtils.createTestBookDtoA(authorDto),
+                TestDataUtils.createTestBookDtoB(authorDto),
+                TestDataUtils.createTestBookDtoC(authorDto));
+
+        mockMvc.perform(MockMvcRequestBuilders.put("/books")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(books)))
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.jsonPath("$.created").value(2))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.updated").value(1))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.items[0].isbn").value(existingBook.getIsbn()))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.items[0].status").value("UPDATED"))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.items[1].status").value("CREATED"))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.items[2].status").value("CREATED"))
+                .andExpect(QueryCounting.statements(5));
+    }
+
+    @Test
+    public void createUpdateBooksShouldBatchInserts() throws Exception {
+        BookEntity seed = TestDataUtils.createTestBookA(TestDataUtils.createTestAuthorA());
+        bookService.createUpdateBook(seed.getIsbn(), seed);
+        AuthorDto authorDto = TestDataUtils.createTestAuthorDtoA();
+        authorDto.setId(seed.getAuthorEntity().getId());
+        List<BookDto> books = IntStream.range(0, 20)
+                .mapToObj(i -> BookDto.builder().isbn("BATCH-" + i).title("Title " + i).author(authorDto).build())
+                .toList();
+        statistics.clear();
+
+        mockMvc.perform(MockMvcRequestBuilders.put("/books")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(books)))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.created").value(20));
+
+        assertThat(statistics.getEntityInsertCount()).isEqualTo(20);
+        // existing books lookup, author lookup and one batched book insert
+        assertThat(statistics.getPrepareStatementCount()).isLessThanOrEqualTo(3);
+    }
+
+    @Test
+    public void createUpdateBooksShouldReturn400WhenIsbnIsRepeated() throws Exception {
+        List<BookDto> books = List.of(TestDataUtils.createTestBookDtoA(null), TestDataUtils.createTestBookDtoA(null));
+
+        mockMvc.perform(MockMvcRequestBuilders.put("/books")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(books)))
+                .andExpect(MockMvcResultMatchers.status().isBadRequest());
+    }
+
+    @Test
+    public void createUpdateBooksShouldReturn400WhenIsbnIsMissing() throws Exception {
+        BookDto book = TestDataUtils.createTestBookDtoA(null);
+        book.setIsbn(null);
+
+        mockMvc.perform(MockMvcRequestBuilders.put("/books")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(List.of(book))))
+                .andExpect(MockMvcResultMatchers.status().isBadRequest());
+    }
+
     @Test
     public void listBooksReturnsStatus200Ok() throws Exception {
         mockMvc.perform(MockMvcRequestBuilders.get("/books"))
                 .andExpect(
                         MockMvcResultMatchers.status().isOk()
-                );
+                )
+                .andExpect(QueryCounting.statements(1));
     }
 
     @Test
@@ -128,6 +243,225 @@ public class BookControllerIntegrationTest {
                 );
     }
 
+    @Test
+    public void listBooksShouldLoadAuthorsWithinPageQuery() throws Exception {
+        AuthorEntity authorA = TestDataUtils.createTestAuthorA();
+        AuthorEntity authorB = TestDataUtils.createTestAuthorB();
+        AuthorEntity authorC = TestDataUtils.createTestAuthorC();
+        bookService.createUpdateBook("TEST-123-123", TestDataUtils.createTestBookA(authorA));
+        bookService.createUpdateBook("TEST-111-111", TestDataUtils.createTestBookB(authorB));
+        bookService.createUpdateBook("TEST-666-555", TestDataUtils.createTestBookC(authorC));
+        statistics.clear();
+
+        mockMvc.perform(MockMvcRequestBuilders.get("/books?size=2"))
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.jsonPath("$.content[0].author.name").isString())
+                .andExpect(MockMvcResultMatchers.jsonPath("$.content[1].author.name").isString())
+                .andExpect(QueryCounting.selects(2));
+
+        // one page query with the authors joined in, plus the count query for a full page
+        assertThat(statistics.getPrepareStatementCount()).isLessThanOrEqualTo(2);
+    }
+
+    @Test
+    public void listBooksWithoutCountShouldReturnSlice() throws Exception {
+        bookService.createUpdateBook("TEST-123-123", TestDataUtils.createTestBookA(null));
+        bookService.createUpdateBook("TEST-111-111", TestDataUtils.createTestBookB(null));
+        bookService.createUpdateBook("TEST-666-555", TestDataUtils.createTestBookC(null));
+
+        mockMvc.perform(MockMvcRequestBuilders.get("/books?count=none&size=2"))
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.jsonPath("$.content.length()").value(2))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.last").value(false))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.totalElements").doesNotExist())
+                .andExpect(QueryCounting.statements(1));
+    }
+
+    @Test
+    public void listBooksWithEstimatedCountShouldReuseCountUntilCatalogChanges() throws Exception {
+        bookService.createUpdateBook("TEST-123-123", TestDataUtils.createTestBookA(null));
+        bookService.createUpdateBook("TEST-111-111", TestDataUtils.createTestBookB(null));
+        bookService.createUpdateBook("TEST-666-555", TestDataUtils.createTestBookC(null));
+
+        mockMvc.perform(MockMvcRequestBuilders.get("/books?count=estimate&size=2"))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.totalElements").value(3))
+                .andExpect(QueryCounting.statements(2));
+        mockMvc.perform(MockMvcRequestBuilders.get("/books?count=estimate&size=2"))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.totalElements").value(3))
+                .andExpect(QueryCounting.statements(1));
+
+        bookService.createUpdateBook("TEST-777-223", TestDataUtils.createTestBookA(null));
+        mockMvc.perform(MockMvcRequestBuilders.get("/books?count=estimate&size=2"))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.totalElements").value(4));
+    }
+
+    @Test
+    public void listBooksWithFieldsShouldSkipAuthors() throws Exception {
+        bookService.createUpdateBook("TEST-123-123", TestDataUtils.createTestBookA(TestDataUtils.createTestAuthorA()));
+        bookService.createUpdateBook("TEST-111-111", TestDataUtils.createTestBookB(TestDataUtils.createTestAuthorB()));
+        statistics.clear();
+
+        mockMvc.perform(MockMvcRequestBuilders.get("/books?fields=isbn,title&sort=isbn"))
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.jsonPath("$.content[0].length()").value(2))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.content[0].isbn").value("TEST-111-111"))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.content[0].title").value("Ancient Sun"))
+                .andExpect(QueryCounting.statements(1));
+
+        // the projection reads columns, not entities
+        assertThat(statistics.getEntityLoadCount()).isZero();
+    }
+
+    @Test
+    public void getBookWithFieldsShouldWriteOnlyThoseFields() throws Exception {
+        BookEntity book = TestDataUtils.createTestBookA(TestDataUtils.createTestAuthorA());
+        bookService.createUpdateBook(book.getIsbn(), book);
+
+        mockMvc.perform(MockMvcRequestBuilders.get("/books/" + book.getIsbn() + "?fields=title,author.name"))
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.jsonPath("$.length()").value(2))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.title").value(book.getTitle()))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.author.length()").value(1))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.author.name").value(book.getAuthorEntity().getName()));
+    }
+
+    @Test
+    public void listBooksShouldReturn400ForUnknownCount() throws Exception {
+        mockMvc.perform(MockMvcRequestBuilders.get("/books?count=approximate"))
+                .andExpect(MockMvcResultMatchers.status().isBadRequest());
+    }
+
+    @Test
+    public void listBooksAfterShouldFollowCursorToLastPage() throws Exception {
+        bookService.createUpdateBook("TEST-123-123", TestDataUtils.createTestBookA(null));
+        bookService.createUpdateBook("TEST-111-111", TestDataUtils.createTestBookB(null));
+        bookService.createUpdateBook("TEST-666-555", TestDataUtils.createTestBookC(null));
+
+        String firstPage = mockMvc.perform(MockMvcRequestBuilders.get("/books?after=&size=2"))
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.jsonPath("$.content.length()").value(2))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.content[0].isbn").value("TEST-111-111"))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.content[1].isbn").value("TEST-123-123"))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.next").isString())
+                .andReturn().getResponse().getContentAsString();
+        String next = objectMapper.readTree(firstPage).get("next").asText();
+
+        mockMvc.perform(MockMvcRequestBuilders.get("/books").param("after", next).param("size", "2"))
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.jsonPath("$.content.length()").value(1))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.content[0].isbn").value("TEST-666-555"))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.next").doesNotExist())
+                .andExpect(QueryCounting.statements(1));
+    }
+
+    @Test
+    public void listBooksAfterShouldReturn400ForInvalidCursor() throws Exception {
+        mockMvc.perform(MockMvcRequestBuilders.get("/books?after=not-a-cursor"))
+                .andExpect(MockMvcResultMatchers.status().isBadRequest());
+    }
+
+    @Test
+    public void searchBooksShouldRankTitleMatchesAboveAuthorMatches() throws Exception {
+        AuthorEntity smith = TestDataUtils.createTestAuthorB();
+        smith.setId(null);
+        AuthorEntity rose = TestDataUtils.createTestAuthorA();
+        rose.setId(null);
+        bookService.createUpdateBook("TEST-123-123", TestDataUtils.createTestBookA(smith));
+        bookService.createUpdateBook("TEST-111-111", TestDataUtils.createTestBookB(null));
+        bookService.createUpdateBook("TEST-666-555", BookEntity.builder().isbn("TEST-666-555").title("Smith of Wootton")
+                .authorEntity(rose).build());
+
+        mockMvc.perform(MockMvcRequestBuilders.get("/books/search").param("q", "smith HOPE"))
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.jsonPath("$.totalElements").value(2))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.content[0].isbn").value("TEST-123-123"))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.content[0].author.name").value("John Smith"))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.content[1].isbn").value("TEST-666-555"))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.content[1].author.name").value("Abigail Rose"))
+                .andExpect(QueryCounting.statements(2));
+
+        mockMvc.perform(MockMvcRequestBuilders.get("/books/search").param("q", "smith hope").param("size", "1"))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.totalElements").value(2))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.content.length()").value(1))
+                .andExpect(QueryCounting.statements(1));
+    }
+
+    @Test
+    public void searchBooksShouldFindChangedTitles() throws Exception {
+        bookService.createUpdateBook("TEST-123-123", TestDataUtils.createTestBookA(null));
+        mockMvc.perform(MockMvcRequestBuilders.get("/books/search").param("q", "hope"))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.totalElements").value(1));
+
+        mockMvc.perform(MockMvcRequestBuilders.patch("/books/TEST-123-123")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"title\": \"Mended Faith\"}"))
+                .andExpect(MockMvcResultMatchers.status().isOk());
+
+        mockMvc.perform(MockMvcRequestBuilders.get("/books/search").param("q", "hope"))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.totalElements").value(0));
+        mockMvc.perform(MockMvcRequestBuilders.get("/books/search").param("q", "faith"))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.content[0].isbn").value("TEST-123-123"));
+    }
+
+    @Test
+    public void searchBooksShouldReturn400ForBlankQuery() throws Exception {
+        mockMvc.perform(MockMvcRequestBuilders.get("/books/search").param("q", " "))
+                .andExpect(MockMvcResultMatchers.status().isBadRequest());
+    }
+
+    @Test
+    public void exportBooksShouldStreamOneJsonLinePerBook() throws Exception {
+        AuthorEntity author = TestDataUtils.createTestAuthorA();
+        bookService.createUpdateBook("TEST-123-123", TestDataUtils.createTestBookA(author));
+        bookService.createUpdateBook("TEST-111-111", TestDataUtils.createTestBookB(null));
+
+        MvcResult result = mockMvc.perform(MockMvcRequestBuilders.get("/books/export"))
+                .andExpect(MockMvcResultMatchers.request().asyncStarted())
+                .andReturn();
+        assertThat(result.getRequest().getAsyncContext().getTimeout()).isEqualTo(Duration.ofHours(1).toMillis());
+        String body = mockMvc.perform(MockMvcRequestBuilders.asyncDispatch(result))
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.content().contentType("application/x-ndjson"))
+                .andExpect(QueryCounting.statements(1))
+                .andReturn().getResponse().getContentAsString();
+
+        List<String> lines = body.lines().toList();
+        assertThat(lines).hasSize(2);
+        assertThat(body).endsWith("\n");
+        assertThat(lines.stream().map(line -> readIsbn(line)))
+                .containsExactlyInAnyOrder("TEST-123-123", "TEST-111-111");
+    }
+
+    @Test
+    public void importBooksShouldReportAcceptedAndRejectedLines() throws Exception {
+        String ndjson = String.join("\n",
+                "{\"isbn\": \"TEST-123-123\", \"title\": \"Broken Hope\"}",
+                "",
+                "{\"isbn\": \"TEST-111-111\", \"title\": \"Ancient Sun\", \"author\": {\"name\": \"John Smith\"}}",
+                "{\"title\": \"No isbn\"}",
+                "{not json");
+
+        mockMvc.perform(MockMvcRequestBuilders.post("/books/import")
+                        .contentType(MediaType.APPLICATION_NDJSON)
+                        .content(ndjson))
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.jsonPath("$.accepted").value(2))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.rejected").value(2))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.errors[0]").value("line 4: missing isbn"))
+                .andExpect(QueryCounting.statements(4));
+
+        mockMvc.perform(MockMvcRequestBuilders.get("/books/TEST-111-111"))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.author.name").value("John Smith"));
+    }
+
+    private String readIsbn(String json) {
+        try {
+            return objectMapper.readValue(json, BookDto.class).getIsbn();
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
     @Test
     public void getBookReturnsStatus200OkWhenExist() throws Exception {
         BookEntity testBook = TestDataUtils.createTestBookA(null);
@@ -157,7 +491,131 @@ public class BookControllerIntegrationTest {
                         MockMvcResultMatchers.jsonPath("$.isbn").value(testBook.getIsbn())
                 ).andExpect(
                         MockMvcResultMatchers.jsonPath("$.title").value(testBook.getTitle())
-                );
+                )
+                .andExpect(QueryCounting.statements(1));
+    }
+
+    @Test
+    public void getBookShouldNegotiateCbor() throws Exception {
+        BookEntity book = TestDataUtils.createTestBookA(TestDataUtils.createTestAuthorA());
+        bookService.createUpdateBook(book.getIsbn(), book);
+
+        byte[] cbor = mockMvc.perform(MockMvcRequestBuilders.get("/books/" + book.getIsbn())
+                        .accept(MediaType.APPLICATION_CBOR))
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.content().contentType(MediaType.APPLICATION_CBOR))
+                .andReturn().getResponse().getContentAsByteArray();
+
+        BookDto bookDto = new CBORMapper().readValue(cbor, BookDto.class);
+        assertThat(bookDto.getIsbn()).isEqualTo(book.getIsbn());
+        assertThat(bookDto.getTitle()).isEqualTo(book.getTitle());
+        assertThat(bookDto.getAuthor().getName()).isEqualTo(book.getAuthorEntity().getName());
+    }
+
+    @Test
+    public void getBookShouldServeResponseCacheUntilBookOrAuthorChanges() throws Exception {
+        BookEntity book = TestDataUtils.createTestBookA(TestDataUtils.createTestAuthorA());
+        bookService.createUpdateBook(book.getIsbn(), book);
+        Long authorId = book.getAuthorEntity().getId();
+
+        mockMvc.perform(MockMvcRequestBuilders.get("/books/" + book.getIsbn()))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.title").value(book.getTitle()));
+        mockMvc.perform(MockMvcRequestBuilders.get("/books/" + book.getIsbn()))
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.header().exists(HttpHeaders.ETAG))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.title").value(book.getTitle()))
+                .andExpect(QueryCounting.statements(0));
+        // a cached JSON body is never served for another Accept
+        mockMvc.perform(MockMvcRequestBuilders.get("/books/" + book.getIsbn()).accept(MediaType.APPLICATION_CBOR))
+                .andExpect(MockMvcResultMatchers.content().contentType(MediaType.APPLICATION_CBOR));
+
+        mockMvc.perform(MockMvcRequestBuilders.patch("/books/" + book.getIsbn())
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"title\":\"Patched\"}"));
+        mockMvc.perform(MockMvcRequestBuilders.get("/books/" + book.getIsbn()))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.title").value("Patched"));
+        mockMvc.perform(MockMvcRequestBuilders.get("/books/" + book.getIsbn()).accept(MediaType.APPLICATION_CBOR));
+
+        mockMvc.perform(MockMvcRequestBuilders.put("/authors/" + authorId)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"name\":\"Renamed\",\"age\":40}"));
+        mockMvc.perform(MockMvcRequestBuilders.get("/books/" + book.getIsbn()))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.author.name").value("Renamed"));
+        byte[] cbor = mockMvc.perform(MockMvcRequestBuilders.get("/books/" + book.getIsbn()).accept(MediaType.APPLICATION_CBOR))
+                .andReturn().getResponse().getContentAsByteArray();
+        assertThat(new CBORMapper().readValue(cbor, BookDto.class).getAuthor().getName()).isEqualTo("Renamed");
+    }
+
+    @Test
+    public void getBookShouldReturn304UntilBookOrAuthorChanges() throws Exception {
+        BookEntity savedBook = bookService.createUpdateBook("978-1-2345-6789-0",
+                TestDataUtils.createTestBookA(TestDataUtils.createTestAuthorA()));
+        String bookUrl = "/books/" + savedBook.getIsbn();
+
+        mockMvc.perform(
+                MockMvcRequestBuilders.get(bookUrl).header(HttpHeaders.IF_NONE_MATCH, "\"0-0\"")
+        ).andExpect(
+                MockMvcResultMatchers.status().isNotModified()
+        );
+
+        mockMvc.perform(
+                MockMvcRequestBuilders.patch("/authors/" + savedBook.getAuthorEntity().getId())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"name\": \"UPDATED\"}")
+        ).andExpect(MockMvcResultMatchers.status().isOk());
+
+        mockMvc.perform(
+                MockMvcRequestBuilders.get(bookUrl).header(HttpHeaders.IF_NONE_MATCH, "\"0-0\"")
+        ).andExpect(
+                MockMvcResultMatchers.status().isOk()
+        ).andExpect(
+                MockMvcResultMatchers.header().string(HttpHeaders.ETAG, "\"0-1\"")
+        ).andExpect(
+                MockMvcResultMatchers.jsonPath("$.author.name").value("UPDATED")
+        );
+    }
+
+    @Test
+    public void partialUpdateShouldUpdateTitleInOneStatement() throws Exception {
+        BookEntity savedBook = bookService.createUpdateBook("978-1-2345-6789-0", TestDataUtils.createTestBookA(null));
+        statistics.clear();
+
+        mockMvc.perform(
+                MockMvcRequestBuilders.patch("/books/" + savedBook.getIsbn())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"title\": \"UPDATED\"}")
+        ).andExpect(
+                MockMvcResultMatchers.jsonPath("$.title").value("UPDATED")
+        ).andExpect(
+                MockMvcResultMatchers.header().string(HttpHeaders.ETAG, "\"1\"")
+        );
+
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+    }
+
+    @Test
+    public void partialUpdateShouldReturn412WhenIfMatchIsStale() throws Exception {
+        BookEntity savedBook = bookService.createUpdateBook("978-1-2345-6789-0", TestDataUtils.createTestBookA(null));
+
+        mockMvc.perform(
+                MockMvcRequestBuilders.patch("/books/" + savedBook.getIsbn())
+                        .header(HttpHeaders.IF_MATCH, "\"0\"")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"title\": \"UPDATED\"}")
+        ).andExpect(
+                MockMvcResultMatchers.status().isOk()
+        ).andExpect(
+                MockMvcResultMatchers.header().string(HttpHeaders.ETAG, "\"1\"")
+        );
+
+        mockMvc.perform(
+                MockMvcRequestBuilders.patch("/books/" + savedBook.getIsbn())
+                        .header(HttpHeaders.IF_MATCH, "\"0\"")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"title\": \"LOST UPDATE\"}")
+        ).andExpect(
+                MockMvcResultMatchers.status().isPreconditionFailed()
+        );
     }
 
     @Test
@@ -195,7 +653,8 @@ public class BookControllerIntegrationTest {
                         .content(bookJson))
                 .andExpect(
                         MockMvcResultMatchers.jsonPath("$.title").value("UPDATED")
-                );
+                )
+                .andExpect(QueryCounting.statements(1));
     }
 
     @Test
@@ -214,4 +673,62 @@ public class BookControllerIntegrationTest {
         mockMvc.perform(MockMvcRequestBuilders.get("/books/" + book.getIsbn()))
                 .andExpect(MockMvcResultMatchers.status().isNotFound());
     }
+
+    @Test
+    public void deleteShouldDeleteBookInOneStatement() throws Exception {
+        BookEntity book = TestDataUtils.createTestBookA(null);
+        bookService.createUpdateBook(book.getIsbn(), book);
+        statistics.clear();
+
+        mockMvc.perform(MockMvcRequestBuilders.delete("/books/" + book.getIsbn()))
+                .andExpect(MockMvcResultMatchers.status().isNoContent())
+                .andExpect(QueryCounting.statements(1));
+
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+    }
+
+    @Test
+    public void deleteBooksShouldDeleteListedIsbnsAndReturnCount() throws Exception {
+        bookService.createUpdateBook("TEST-123-123", TestDataUtils.createTestBookA(null));
+        bookService.createUpdateBook("TEST-111-111", TestDataUtils.createTestBookB(null));
+        bookService.createUpdateBook("TEST-666-555", TestDataUtils.createTestBookC(null));
+        statistics.clear();
+
+        mockMvc.perform(MockMvcRequestBuilders.delete("/books")
+                        .param("isbn", "TEST-123-123", "TEST-111-111", "NOT-THERE"))
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.jsonPath("$.deleted").value(2))
+                .andExpect(QueryCounting.statements(1));
+
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+        mockMvc.perform(MockMvcRequestBuilders.get("/books/TEST-666-555"))
+                .andExpect(MockMvcResultMatchers.status().isOk());
+    }
+
+    @Test
+    public void deleteBooksShouldDeleteBooksOfAuthorAndKeepAuthor() throws Exception {
+        BookEntity savedBook = bookService.createUpdateBook("TEST-123-123",
+                TestDataUtils.createTestBookA(TestDataUtils.createTestAuthorA()));
+        bookService.createUpdateBook("TEST-111-111", TestDataUtils.createTestBookB(savedBook.getAuthorEntity()));
+        bookService.createUpdateBook("TEST-666-555", TestDataUtils.createTestBookC(null));
+        Long authorId = savedBook.getAuthorEntity().getId();
+
+        mockMvc.perform(MockMvcRequestBuilders.get("/books/TEST-111-111"))
+                .andExpect(MockMvcResultMatchers.status().isOk());
+        mockMvc.perform(MockMvcRequestBuilders.delete("/books").param("authorId", authorId.toString()))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.deleted").value(2));
+
+        mockMvc.perform(MockMvcRequestBuilders.get("/books/TEST-111-111"))
+                .andExpect(MockMvcResultMatchers.status().isNotFound());
+        mockMvc.perform(MockMvcRequestBuilders.get("/books/TEST-666-555"))
+                .andExpect(MockMvcResultMatchers.status().isOk());
+        mockMvc.perform(MockMvcRequestBuilders.get("/authors/" + authorId))
+                .andExpect(MockMvcResultMatchers.status().isOk());
+    }
+
+    @Test
+    public void deleteBooksShouldReturn400WithoutCriteria() throws Exception {
+        mockMvc.perform(MockMvcRequestBuilders.delete("/books"))
+                .andExpect(MockMvcResultMatchers.status().isBadRequest());
+    }
 }
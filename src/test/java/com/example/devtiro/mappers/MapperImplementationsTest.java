@@ -0,0 +1,52 @@
+package com.example.devtiro.mappers;
+
+import com.example.devtiro.TestDataUtils;
+import com.example.devtiro.config.MapperConfig;
+import com.example.devtiro.domain.dto.AuthorDto;
+import com.example.devtiro.domain.dto.BookDto;
+import com.example.devtiro.domain.entities.AuthorEntity;
+import com.example.devtiro.domain.entities.BookEntity;
+import com.example.devtiro.mappers.impl.AuthorDirectMapperImpl;
+import com.example.devtiro.mappers.impl.AuthorMapperImpl;
+import com.example.devtiro.mappers.impl.BookDirectMapperImpl;
+import com.example.devtiro.mappers.impl.BookMapperImpl;
+import org.junit.jupiter.api.Test;
+import org.modelmapper.ModelMapper;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class MapperImplementationsTest {
+
+    private final ModelMapper modelMapper = new MapperConfig().createModelMapper();
+    private final Mapper<AuthorEntity, AuthorDto> modelAuthorMapper = new AuthorMapperImpl(modelMapper);
+    private final Mapper<BookEntity, BookDto> modelBookMapper = new BookMapperImpl(modelMapper);
+    private final AuthorDirectMapperImpl directAuthorMapper = new AuthorDirectMapperImpl();
+    private final Mapper<BookEntity, BookDto> directBookMapper = new BookDirectMapperImpl(directAuthorMapper);
+
+    @Test
+    public void directAuthorMapperShouldMatchModelMapper() {
+        AuthorEntity author = TestDataUtils.createTestAuthorA();
+        AuthorDto authorDto = TestDataUtils.createTestAuthorDtoB();
+
+        assertEquals(modelAuthorMapper.mapTo(author), directAuthorMapper.mapTo(author));
+        assertEquals(modelAuthorMapper.mapFrom(authorDto), directAuthorMapper.mapFrom(authorDto));
+    }
+
+    @Test
+    public void directBookMapperShouldMatchModelMapper() {
+        BookEntity book = TestDataUtils.createTestBookA(TestDataUtils.createTestAuthorA());
+        BookDto bookDto = TestDataUtils.createTestBookDtoB(TestDataUtils.createTestAuthorDtoB());
+
+        assertEquals(modelBookMapper.mapTo(book), directBookMapper.mapTo(book));
+        assertEquals(modelBookMapper.mapFrom(bookDto), directBookMapper.mapFrom(bookDto));
+    }
+
+    @Test
+    public void directBookMapperShouldMatchModelMapperWithoutAuthor() {
+        BookEntity book = TestDataUtils.createTestBookA(null);
+        BookDto bookDto = TestDataUtils.createTestBookDtoB(null);
+
+        assertEquals(modelBookMapper.mapTo(book), directBookMapper.mapTo(book));
+        assertEquals(modelBookMapper.mapFrom(bookDto), directBookMapper.mapFrom(bookDto));
+    }
+}
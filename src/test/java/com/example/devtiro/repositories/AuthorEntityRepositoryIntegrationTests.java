@@ -2,6 +2,9 @@ package com.example.devtiro.repositories;
 
 import com.example.devtiro.TestDataUtils;
 import com.example.devtiro.domain.entities.AuthorEntity;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -20,10 +23,12 @@ import static org.junit.jupiter.api.Assertions.*;
 public class AuthorEntityRepositoryIntegrationTests {
 
     private final AuthorRepository underTest;
+    private final Statistics statistics;
 
     @Autowired
-    public AuthorEntityRepositoryIntegrationTests(AuthorRepository underTest) {
+    public AuthorEntityRepositoryIntegrationTests(AuthorRepository underTest, EntityManagerFactory entityManagerFactory) {
         this.underTest = underTest;
+        this.statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
     }
 
 
@@ -99,4 +104,38 @@ public class AuthorEntityRepositoryIntegrationTests {
         assertThat(result).containsExactly(testAuthorAEntity, testAuthorBEntity);
     }
 
+    @Test
+    public void findByIdShouldBeServedFromSecondLevelCache(){
+        AuthorEntity savedAuthor = underTest.save(TestDataUtils.createTestAuthorA());
+        statistics.clear();
+
+        Optional<AuthorEntity> result = underTest.findById(savedAuthor.getId());
+
+        assertTrue(result.isPresent());
+        assertEquals(1, statistics.getSecondLevelCacheHitCount());
+        assertEquals(0, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    public void findByNameShouldBeServedFromQueryCache(){
+        AuthorEntity savedAuthor = underTest.save(TestDataUtils.createTestAuthorA());
+        underTest.findByName(savedAuthor.getName());
+        statistics.clear();
+
+        Optional<AuthorEntity> result = underTest.findByName(savedAuthor.getName());
+
+        assertTrue(result.isPresent());
+        assertEquals(1, statistics.getQueryCacheHitCount());
+        assertEquals(0, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    public void findByNameShouldSeeAuthorsSavedAfterCachedQuery(){
+        AuthorEntity author = TestDataUtils.createTestAuthorA();
+        assertFalse(underTest.findByName(author.getName()).isPresent());
+
+        underTest.save(author);
+
+        assertTrue(underTest.findByName(author.getName()).isPresent());
+    }
 }
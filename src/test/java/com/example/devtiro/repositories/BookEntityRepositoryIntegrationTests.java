@@ -3,28 +3,40 @@ package com.example.devtiro.repositories;
 import com.example.devtiro.TestDataUtils;
 import com.example.devtiro.domain.entities.AuthorEntity;
 import com.example.devtiro.domain.entities.BookEntity;
+import jakarta.persistence.Cache;
+import jakarta.persistence.EntityManagerFactory;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.test.annotation.DirtiesContext;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.util.Optional;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.junit.jupiter.api.Assertions.*;
 
-@SpringBootTest
+@SpringBootTest(properties = "devtiro.count.exact-count-ttl=200ms")
 @ExtendWith(SpringExtension.class)
 @DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD)
 public class BookEntityRepositoryIntegrationTests {
 
     private BookRepository underTest;
+    private Cache cache;
+    private TransactionTemplate transactionTemplate;
+    private JdbcTemplate jdbcTemplate;
 
     @Autowired
-    public BookEntityRepositoryIntegrationTests(BookRepository underTest) {
+    public BookEntityRepositoryIntegrationTests(BookRepository underTest, EntityManagerFactory entityManagerFactory,
+                                                PlatformTransactionManager transactionManager, JdbcTemplate jdbcTemplate) {
         this.underTest = underTest;
+        this.cache = entityManagerFactory.getCache();
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.jdbcTemplate = jdbcTemplate;
     }
 
     @Test
@@ -65,6 +77,46 @@ public class BookEntityRepositoryIntegrationTests {
         assertTrue(book.isPresent());
         assertEquals(book.get(), bookEntityA);
     }
+
+    @Test
+    public void upsertShouldEvictCachedBookOnlyAfterCommit(){
+        BookEntity bookEntity = TestDataUtils.createTestBookA(null);
+        underTest.save(bookEntity);
+        underTest.findById(bookEntity.getIsbn());
+        assertTrue(cache.contains(BookEntity.class, bookEntity.getIsbn()));
+
+        transactionTemplate.executeWithoutResult(status -> {
+            underTest.upsert(TestDataUtils.createTestBookA(null));
+            assertTrue(cache.contains(BookEntity.class, bookEntity.getIsbn()));
+        });
+        assertFalse(cache.contains(BookEntity.class, bookEntity.getIsbn()));
+    }
+
+    @Test
+    public void patchShouldEvictCachedBookOnlyAfterCommit(){
+        BookEntity bookEntity = TestDataUtils.createTestBookA(null);
+        underTest.save(bookEntity);
+        underTest.findById(bookEntity.getIsbn());
+
+        transactionTemplate.executeWithoutResult(status -> {
+            underTest.patch(bookEntity.getIsbn(), "PATCHED", null);
+            assertTrue(cache.contains(BookEntity.class, bookEntity.getIsbn()));
+        });
+        assertFalse(cache.contains(BookEntity.class, bookEntity.getIsbn()));
+        assertEquals("PATCHED", underTest.findById(bookEntity.getIsbn()).get().getTitle());
+    }
+
+    @Test
+    public void estimateCountShouldBeTakenAgainOnceItExpires() throws InterruptedException {
+        underTest.save(TestDataUtils.createTestBookA(null));
+        assertEquals(1, underTest.estimateCount());
+
+        // written elsewhere, so no change event moves the generation
+        jdbcTemplate.update("INSERT INTO books (isbn, title) VALUES ('OTHER-1', 'Elsewhere')");
+        Thread.sleep(300);
+        assertEquals(2, underTest.estimateCount());
+    }
+
     @Test
     public void shouldDeleteById(){
         AuthorEntity authorEntity = TestDataUtils.createTestAuthorA();
@@ -0,0 +1,90 @@
+package com.example.devtiro.services;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PipedInputStream;
+import java.io.PipedOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@SpringBootTest(properties = {
+        "devtiro.import.writers=1",
+        "devtiro.import.pending-writers=2",
+        "devtiro.import.writer-start-timeout=200ms"
+})
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD)
+@ExtendWith(SpringExtension.class)
+public class BookImportServiceIntegrationTest {
+
+    private final BookImportService bookImportService;
+
+    @Autowired
+    public BookImportServiceIntegrationTest(BookImportService bookImportService) {
+        this.bookImportService = bookImportService;
+    }
+
+    @Test
+    public void importShouldBeRejectedWhenItsWriterDoesNotStartInTime() throws Exception {
+        PipedOutputStream body = new PipedOutputStream();
+        PipedInputStream pending = new PipedInputStream(body);
+        CompletableFuture<?> first = CompletableFuture.runAsync(() -> importQuietly(pending));
+        awaitWriterThread();
+
+        assertThatThrownBy(() -> bookImportService.importBooks(ndjson("{\"isbn\":\"978-1-2345-6789-0\",\"title\":\"A\"}")))
+                .isInstanceOf(RejectedExecutionException.class);
+
+        // the abandoned writer may still hold a place in the backlog
+        body.close();
+        first.join();
+        assertThat(bookImportService.importBooks(ndjson("{\"isbn\":\"978-1-2345-6789-1\",\"title\":\"B\"}")).getAccepted())
+                .isEqualTo(1);
+    }
+
+    @Test
+    public void readFailureShouldNotBeHiddenByReleasingTheWriter() {
+        InputStream broken = new InputStream() {
+            @Override
+            public int read() throws IOException {
+                throw new IOException("connection reset");
+            }
+        };
+
+        assertThatThrownBy(() -> bookImportService.importBooks(broken))
+                .isInstanceOf(IOException.class)
+                .hasMessage("connection reset");
+    }
+
+    private void importQuietly(InputStream ndjson) {
+        try {
+            bookImportService.importBooks(ndjson);
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    // the pool starts its only thread for the first writer submitted to it
+    private static void awaitWriterThread() throws InterruptedException {
+        for (int i = 0; i < 100; i++) {
+            if (Thread.getAllStackTraces().keySet().stream().anyMatch(t -> t.getName().startsWith("book-import-")))
+                return;
+            Thread.sleep(50);
+        }
+        throw new AssertionError("Book import writer never started");
+    }
+
+    private static InputStream ndjson(String line) {
+        return new ByteArrayInputStream((line + "\n").getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,89 @@
+package com.example.devtiro.services;
+
+import com.example.devtiro.TestDataUtils;
+import com.example.devtiro.config.CacheConfig;
+import com.example.devtiro.domain.entities.AuthorEntity;
+import com.example.devtiro.domain.entities.BookEntity;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.caffeine.CaffeineCache;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD)
+@ExtendWith(SpringExtension.class)
+public class CatalogCacheIntegrationTest {
+
+    private final BookService bookService;
+    private final AuthorService authorService;
+    private final CacheManager cacheManager;
+    private final Statistics statistics;
+
+    @Autowired
+    public CatalogCacheIntegrationTest(BookService bookService, AuthorService authorService,
+                                       CacheManager cacheManager, EntityManagerFactory entityManagerFactory) {
+        this.bookService = bookService;
+        this.authorService = authorService;
+        this.cacheManager = cacheManager;
+        this.statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    @Test
+    public void findOneShouldServeRepeatedLookupsFromCache() {
+        BookEntity book = TestDataUtils.createTestBookA(null);
+        bookService.createUpdateBook(book.getIsbn(), book);
+
+        bookService.findOne(book.getIsbn());
+        statistics.clear();
+        bookService.findOne(book.getIsbn());
+
+        assertThat(statistics.getPrepareStatementCount()).isZero();
+        assertThat(stats(CacheConfig.BOOKS).hitCount()).isEqualTo(1);
+        assertThat(stats(CacheConfig.BOOKS).missCount()).isEqualTo(1);
+    }
+
+    @Test
+    public void createUpdateBookShouldEvictCachedBook() {
+        BookEntity book = TestDataUtils.createTestBookA(null);
+        bookService.createUpdateBook(book.getIsbn(), book);
+        bookService.findOne(book.getIsbn());
+
+        BookEntity updatedBook = TestDataUtils.createTestBookA(null);
+        updatedBook.setTitle("UPDATED");
+        bookService.createUpdateBook(book.getIsbn(), updatedBook);
+
+        assertThat(bookService.findOne(book.getIsbn())).hasValueSatisfying(
+                found -> assertThat(found.getTitle()).isEqualTo("UPDATED"));
+    }
+
+    @Test
+    public void authorUpdateShouldEvictCachedBooksOfThatAuthor() {
+        AuthorEntity author = TestDataUtils.createTestAuthorA();
+        BookEntity book = TestDataUtils.createTestBookA(author);
+        BookEntity savedBook = bookService.createUpdateBook(book.getIsbn(), book);
+        Long authorId = savedBook.getAuthorEntity().getId();
+        bookService.findOne(book.getIsbn());
+        authorService.findOne(authorId);
+
+        authorService.partialUpdate(authorId, AuthorEntity.builder().name("UPDATED").build(), null);
+
+        assertThat(bookService.findOne(book.getIsbn())).hasValueSatisfying(
+                found -> assertThat(found.getAuthorEntity().getName()).isEqualTo("UPDATED"));
+        assertThat(authorService.findOne(authorId)).hasValueSatisfying(
+                found -> assertThat(found.getName()).isEqualTo("UPDATED"));
+    }
+
+    private CacheStats stats(String cacheName) {
+        return ((CaffeineCache) cacheManager.getCache(cacheName)).getNativeCache().stats();
+    }
+}